@@ -0,0 +1,63 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author yangsanning
+ * @ClassName ItemRebuildBenchmark
+ * @Description 新增、移除一个 item 时菜单实际执行的状态维护: addItem/removeItem 走 {@link MenuState#insertItem}、
+ * {@link MenuState#removeItem}(含 {@link MenuSelection} 调整选中), setItems 走 {@link MenuState#setItems}(含 {@link MenuItemDiff}).
+ * 每次操作先新增再移除中间的 item, 状态保持不变; 选中中间之后的 item, 选中位置每次都需要调整. 不包含 View 的创建及布局
+ * @Date 2020/6/18
+ */
+@State(Scope.Thread)
+public class ItemRebuildBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int itemCount;
+
+    private MenuState menuState;
+    private List<String> keys;
+    private List<String> addedKeys;
+    private int middle;
+
+    @Setup
+    public void setup() {
+        middle = itemCount / 2;
+        keys = new ArrayList<>(itemCount);
+        menuState = new MenuState();
+        for (int i = 0; i < itemCount; i++) {
+            keys.add("item" + i);
+            menuState.insertItem(i, keys.get(i));
+        }
+        menuState.select(itemCount - 1);
+        addedKeys = new ArrayList<>(keys);
+        addedKeys.add(middle, "added");
+    }
+
+    /**
+     * addItem + removeItem 的状态维护
+     */
+    @Benchmark
+    public void insertThenRemove(Blackhole blackhole) {
+        blackhole.consume(menuState.insertItem(middle, "added"));
+        blackhole.consume(menuState.removeItem(middle));
+    }
+
+    /**
+     * 通过 setItems 新增后再移除同一个 item
+     */
+    @Benchmark
+    public void setItemsAddThenRemove(Blackhole blackhole) {
+        blackhole.consume(menuState.setItems(addedKeys));
+        blackhole.consume(menuState.setItems(keys));
+    }
+}
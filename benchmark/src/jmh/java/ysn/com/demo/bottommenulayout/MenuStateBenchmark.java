@@ -0,0 +1,58 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuStateBenchmark
+ * @Description {@link MenuState} 状态转换及 diff 的开销
+ * @Date 2020/6/19
+ */
+@State(Scope.Thread)
+public class MenuStateBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int itemCount;
+
+    private MenuState menuState;
+    private MenuState target;
+    private int step;
+
+    @Setup
+    public void setup() {
+        menuState = new MenuState();
+        for (int i = 0; i < itemCount; i++) {
+            menuState.insertItem(i, "item" + i);
+        }
+        // 目标状态: 切换选中, 每 5 个 item 修改一个角标
+        target = menuState.copy();
+        target.select(itemCount - 1);
+        for (int i = 0; i < itemCount; i += 5) {
+            target.setUnreadNum(i, i + 1);
+        }
+    }
+
+    @Benchmark
+    public MenuChange select() {
+        return menuState.select(step++ % itemCount);
+    }
+
+    @Benchmark
+    public MenuChange setUnreadNum() {
+        return menuState.setUnreadNum(itemCount / 2, step++ & 127);
+    }
+
+    @Benchmark
+    public MenuChange diff() {
+        return menuState.diff(target);
+    }
+
+    @Benchmark
+    public MenuState copy() {
+        return menuState.copy();
+    }
+}
@@ -0,0 +1,98 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author yangsanning
+ * @ClassName SelectionBenchmark
+ * @Description 移动、插入、移除 item 时选中位置的维护: 引入 {@link MenuSelection} 之前 BottomMenuLayout 中的原代码
+ * (逐行照搬, 仅将 item 换为 Object) 与 {@link MenuSelection} 对比
+ * @Date 2020/6/18
+ */
+@State(Scope.Thread)
+public class SelectionBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int itemCount;
+
+    private List<Object> items;
+    private int currentPosition;
+    private int step;
+
+    @Setup
+    public void setup() {
+        items = new ArrayList<>(itemCount + 1);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new Object());
+        }
+        currentPosition = itemCount / 2;
+    }
+
+    /**
+     * 将末尾 item 移动到头部, 选中 item 随之后移. 原 moveItem: 移动前取出选中 item, 移动后 indexOf 查找
+     */
+    @Benchmark
+    public int moveBaseline() {
+        Object selectedItem = currentPosition < items.size() ? items.get(currentPosition) : null;
+        Object item = items.remove(itemCount - 1);
+        items.add(0, item);
+        if (selectedItem != null) {
+            currentPosition = items.indexOf(selectedItem);
+        }
+        return currentPosition;
+    }
+
+    @Benchmark
+    public int moveBySelection() {
+        items.add(0, items.remove(itemCount - 1));
+        currentPosition = MenuSelection.afterMove(currentPosition, itemCount - 1, 0);
+        return currentPosition;
+    }
+
+    /**
+     * 交替在头部插入、移除 item, 列表大小保持不变. 原 insertItem/removeItem 中选中位置的计算
+     * (原实现同样是下标计算, 两者预期接近, 用于确认提取为 MenuSelection 没有引入额外开销)
+     */
+    @Benchmark
+    public int insertRemoveBaseline() {
+        if ((step++ & 1) == 0) {
+            int position = 0;
+            items.add(position, new Object());
+            if (items.size() == 1) {
+                currentPosition = 0;
+            } else if (position <= currentPosition) {
+                currentPosition++;
+            }
+        } else {
+            int position = 0;
+            items.remove(position);
+            if (position < currentPosition) {
+                currentPosition--;
+            } else if (position == currentPosition) {
+                if (currentPosition >= items.size()) {
+                    currentPosition = Math.max(items.size() - 1, 0);
+                }
+            }
+        }
+        return currentPosition;
+    }
+
+    @Benchmark
+    public int insertRemoveBySelection() {
+        if ((step++ & 1) == 0) {
+            items.add(0, new Object());
+            currentPosition = MenuSelection.afterInsert(currentPosition, 0, items.size());
+        } else {
+            items.remove(0);
+            currentPosition = MenuSelection.afterRemove(currentPosition, 0, items.size());
+        }
+        return currentPosition;
+    }
+}
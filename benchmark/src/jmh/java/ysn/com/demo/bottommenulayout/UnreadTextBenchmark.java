@@ -0,0 +1,59 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * @Author yangsanning
+ * @ClassName UnreadTextBenchmark
+ * @Description 未读数文本: 每次格式化(原 setUnreadNum 实现) 与 {@link UnreadTextTable} 对比
+ * @Date 2020/6/18
+ */
+@State(Scope.Thread)
+public class UnreadTextBenchmark {
+
+    private static final int NUM_COUNT = 1024;
+
+    @Param({"99", "999"})
+    public int maxUnreadNum;
+
+    private int[] unreadNums;
+    private int index;
+    private UnreadTextTable table;
+
+    @Setup
+    public void setup() {
+        // 约一半超出最大未读数
+        Random random = new Random(42);
+        unreadNums = new int[NUM_COUNT];
+        for (int i = 0; i < NUM_COUNT; i++) {
+            unreadNums[i] = 1 + random.nextInt(maxUnreadNum * 2);
+        }
+        table = UnreadTextTable.of(maxUnreadNum);
+    }
+
+    private int nextUnreadNum() {
+        index = (index + 1) & (NUM_COUNT - 1);
+        return unreadNums[index];
+    }
+
+    @Benchmark
+    public String format() {
+        int unreadNum = nextUnreadNum();
+        if (unreadNum <= maxUnreadNum) {
+            return String.valueOf(unreadNum);
+        }
+        return String.format(Locale.CHINA, "%d+", maxUnreadNum);
+    }
+
+    @Benchmark
+    public String table() {
+        return table.get(nextUnreadNum());
+    }
+}
@@ -1,18 +1,39 @@
 package ysn.com.demo.bottommenulayout;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
+import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.LinearLayout;
 
+import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.fragment.app.FragmentManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.tracing.Trace;
 import androidx.viewpager.widget.ViewPager;
 import androidx.viewpager2.widget.ViewPager2;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @Author yangsanning
@@ -24,27 +45,44 @@ public class BottomMenuLayout extends LinearLayout {
 
     private static final String BUNDLE_INSTANCE = "BUNDLE_INSTANCE";
     private static final String BUNDLE_CURRENT_POSITION = "BUNDLE_CURRENT_POSITION";
+    private static final String BUNDLE_ITEM_KEYS = "BUNDLE_ITEM_KEYS";
+    private static final String BUNDLE_ITEM_STATES = "BUNDLE_ITEM_STATES";
+    private static final String BUNDLE_BADGE_KINDS = "BUNDLE_BADGE_KINDS";
+    private static final String BUNDLE_UNREAD_NUMS = "BUNDLE_UNREAD_NUMS";
+    private static final String BUNDLE_MSGS = "BUNDLE_MSGS";
+    private static final String BUNDLE_RETAIN_TOKEN = "BUNDLE_RETAIN_TOKEN";
+
+    /**
+     * 点击合并, 见 {@link #setTapCoalesceWindow(long)}
+     */
+    public static final long TAP_COALESCE_NONE = -1;
+    public static final long TAP_COALESCE_FRAME = 0;
+
+    private static final int[] STATE_PRESSED = {android.R.attr.state_pressed, android.R.attr.state_enabled};
+    private static final int[] STATE_NORMAL = {android.R.attr.state_enabled};
 
     private Bind bind = Bind.NONE;
-    private int currentPosition;
+    /**
+     * 选中、角标等状态, item 根据其产生的变更渲染
+     */
+    private final MenuState menuState = new MenuState();
     private boolean smoothScroll;
     private List<MenuItemView> menuItemViewList = new ArrayList<>();
 
     private OnMenuItemSelectedListener onMenuItemSelectedListener;
+    private OnMenuItemReselectedListener onMenuItemReselectedListener;
     private ViewPager.OnPageChangeListener onPageChangeListener = new ViewPager.OnPageChangeListener() {
         @Override
         public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-
+            onMenuScrolled(position, positionOffset);
         }
 
         @Override
         public void onPageSelected(int position) {
-            resetCurrentItem();
-            menuItemViewList.get(position).refreshItem(true);
-            if (onMenuItemSelectedListener != null) {
-                onMenuItemSelectedListener.onItemSelected(getMenuItem(position), currentPosition, position);
-            }
-            currentPosition = position;
+            prefetchedPage2Position = -1;
+            int previousPosition = menuState.getSelectedPosition();
+            render(menuState.select(position));
+            notifyItemSelected(previousPosition, position);
         }
 
         @Override
@@ -52,9 +90,171 @@ public class BottomMenuLayout extends LinearLayout {
 
         }
     };
+    private ViewPager2.OnPageChangeCallback onPageChangeCallback = new ViewPager2.OnPageChangeCallback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            onMenuScrolled(position, positionOffset);
+        }
+
+        @Override
+        public void onPageSelected(int position) {
+            onPageChangeListener.onPageSelected(position);
+        }
+    };
 
     private ViewPager viewPager1;
     private ViewPager2 viewPager2;
+    private MenuFragmentHost fragmentHost;
+
+    /**
+     * inUpdate: 是否正在批量更新, 期间屏蔽 requestLayout
+     * layoutRequestedInUpdate: 批量更新期间是否有 requestLayout 请求
+     */
+    private boolean inUpdate;
+    private boolean layoutRequestedInUpdate;
+
+    private MenuBadgeStore badgeStore;
+
+    /**
+     * 上一次滑动过渡的起始位置, 无过渡时为 -1
+     */
+    private int scrollingPosition = -1;
+
+    /**
+     * 性能统计, 未设置监听时不做计时及计数
+     * clickTimeNanos: 最近一次点击的时间, 回调选中后清零
+     * badgeWindowStartNanos、badgeUpdateCount: 当前统计周期的开始时间及角标更新次数
+     * layoutRequestCount: 菜单触发 requestLayout 的累计次数
+     */
+    private OnMetricsListener onMetricsListener;
+
+    /**
+     * metricsCounted: 是否已计入 {@link MenuMetrics} 的统计开关
+     * windowDetached: 是否已从窗口移除(尚未 attach 过的菜单视为未移除, 添加到窗口前创建的 item 也计时, 角标数据也会同步)
+     */
+    private boolean metricsCounted;
+    private boolean windowDetached;
+    private long clickTimeNanos;
+    private long badgeWindowStartNanos;
+    private int badgeUpdateCount;
+    private int layoutRequestCount;
+
+    /**
+     * 共用点击效果, 开启后 item 不再使用各自的点击背景, 由菜单在按下的 item 位置绘制同一个 Drawable
+     * pressedItem: 当前按下的 item
+     */
+    private boolean sharedPressFeedback;
+    private Drawable pressDrawable;
+    private MenuItemView pressedItem;
+    private final Rect pressBounds = new Rect();
+
+    /**
+     * 从窗口移除后放回 {@link MenuItemViewPool} 的 item 数据, 未放回时为 null
+     */
+    private List<MenuItemBuilder> releasedBuilders;
+    private Handler mainHandler;
+    private final Runnable releaseItemsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!isAttachedToWindow()) {
+                releaseItems();
+            }
+        }
+    };
+
+    /**
+     * 保存状态时是否保留 item, 重建后的菜单直接取回已创建的 item, 见 {@link #setRetainItemViews(boolean)}
+     * retainToken: 保留 item 的标识, 随状态保存
+     * retainedItems: 恢复状态期间可取回的 item
+     */
+    private boolean retainItemViews;
+    private String retainToken;
+    private List<MenuItemView> retainedItems;
+
+    /**
+     * 按下 item 到点击之间提前准备目标页面
+     * pressPosition: 按下的 item 位置, 未按下或已取消时为 -1
+     * prefetchOnPress: 按下时是否让绑定的 ViewPager 提前创建目标页面
+     * originalOffscreenPageLimit: 提前创建页面前 ViewPager 的 offscreenPageLimit, offscreenPageLimitChanged 为 true 时有效
+     * prefetchedPage2Position: ViewPager2 已提前创建、尚未选中的页面, 避免反复按下时重复创建
+     */
+    private OnMenuItemPressListener onMenuItemPressListener;
+    private int pressPosition = -1;
+    private boolean prefetchOnPress;
+    private int originalOffscreenPageLimit;
+    private boolean offscreenPageLimitChanged;
+    private int prefetchedPage2Position = -1;
+    private final Runnable restoreOffscreenPageLimitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            restoreOffscreenPageLimit();
+        }
+    };
+
+    /**
+     * 点击合并, 见 {@link #setTapCoalesceWindow(long)}, 记录 item 而不是位置, 合并期间移除的 item 不会分发到其他位置
+     */
+    private final MenuTapCoalescer<MenuItemView> tapCoalescer = new MenuTapCoalescer<MenuItemView>() {
+        @Override
+        protected boolean dispatch(MenuItemView item) {
+            int position = menuItemViewList.indexOf(item);
+            if (position < 0) {
+                return false;
+            }
+            dispatchTap(position);
+            return true;
+        }
+
+        @Override
+        protected void schedule(long windowMillis) {
+            if (windowMillis == TAP_COALESCE_FRAME) {
+                Choreographer.getInstance().postFrameCallback(tapFrameCallback);
+            } else {
+                postDelayed(tapWindowRunnable, windowMillis);
+            }
+        }
+
+        @Override
+        protected void unschedule() {
+            removeCallbacks(tapWindowRunnable);
+            Choreographer.getInstance().removeFrameCallback(tapFrameCallback);
+        }
+    };
+    private final Runnable tapWindowRunnable = new Runnable() {
+        @Override
+        public void run() {
+            tapCoalescer.onWindowEnd();
+        }
+    };
+    private final Choreographer.FrameCallback tapFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            tapCoalescer.onWindowEnd();
+        }
+    };
+
+    /**
+     * 内存不足时释放未显示的资源, 添加到窗口期间监听
+     */
+    private Context appContext;
+    private final ComponentCallbacks2 componentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                trimMemory(level >= TRIM_MEMORY_BACKGROUND);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(true);
+        }
+    };
 
     public BottomMenuLayout(Context context) {
         this(context, null);
@@ -69,8 +269,14 @@ public class BottomMenuLayout extends LinearLayout {
         TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.BottomMenuLayout);
 
         smoothScroll = typedArray.getBoolean(R.styleable.BottomMenuLayout_bml_smooth_scroll, false);
+        sharedPressFeedback = typedArray.getBoolean(R.styleable.BottomMenuLayout_bml_shared_press_feedback, false);
+        int pressDrawableId = typedArray.getResourceId(R.styleable.BottomMenuLayout_bml_press_drawable, 0);
 
         typedArray.recycle();
+
+        if (sharedPressFeedback) {
+            setPressDrawable(pressDrawableId != 0 ? MenuDrawableCache.getDrawable(context, pressDrawableId) : null);
+        }
     }
 
     @Override
@@ -80,18 +286,51 @@ public class BottomMenuLayout extends LinearLayout {
     }
 
     public void setViewPager1(ViewPager viewPager1) {
+        restoreOffscreenPageLimit();
+        removeOnPageChangeListener();
+        releaseFragmentHost();
         this.bind = Bind.VIEW_PAGE_1;
         this.viewPager1 = viewPager1;
         initView();
     }
 
     public void setViewPager2(ViewPager2 viewPager2) {
+        restoreOffscreenPageLimit();
+        removeOnPageChangeListener();
+        releaseFragmentHost();
         this.bind = Bind.VIEW_PAGE_2;
         this.viewPager2 = viewPager2;
+        this.prefetchedPage2Position = -1;
+        initView();
+    }
+
+    /**
+     * 绑定 Fragment: 选中 item 时在 containerId 中显示对应的 Fragment, 首次选中时通过 fragmentCreator 创建,
+     * 可通过返回的 {@link MenuFragmentHost} 开启预加载、设置内存不足时保留的个数
+     */
+    public MenuFragmentHost setFragmentHost(FragmentManager fragmentManager, int containerId, MenuFragmentHost.FragmentCreator fragmentCreator) {
+        restoreOffscreenPageLimit();
+        removeOnPageChangeListener();
+        releaseFragmentHost();
+        this.bind = Bind.FRAGMENT;
+        this.fragmentHost = new MenuFragmentHost(this, fragmentManager, containerId, fragmentCreator);
+        if (isAttachedToWindow()) {
+            fragmentHost.onAttached(getContext());
+        }
         initView();
+        fragmentHost.show(menuState.getSelectedPosition());
+        return fragmentHost;
+    }
+
+    private void releaseFragmentHost() {
+        if (fragmentHost != null) {
+            fragmentHost.onDetached();
+            fragmentHost = null;
+        }
     }
 
     private void initView() {
+        restoreReleasedItems();
         menuItemViewList.clear();
         int childCount = getChildCount();
         if (childCount == 0) {
@@ -101,16 +340,20 @@ public class BottomMenuLayout extends LinearLayout {
         // 检查个数是否一致
         checkCount(childCount);
 
+        List<String> keys = new ArrayList<>(childCount);
         for (int i = 0; i < childCount; i++) {
             if (getChildAt(i) instanceof MenuItemView) {
                 MenuItemView menuItemView = (MenuItemView) getChildAt(i);
                 menuItemViewList.add(menuItemView);
-                menuItemView.setOnClickListener(new MenuItemOnClickListener(i));
+                prepareItem(menuItemView);
+                keys.add(menuItemView.getKey());
             } else {
                 throw new IllegalArgumentException("BottomMenuLayout 的子 View 必须是 MenuItemView");
             }
         }
+        menuState.setItems(keys);
 
+        int currentPosition = menuState.getSelectedPosition();
         if (currentPosition < menuItemViewList.size()) {
             menuItemViewList.get(currentPosition).refreshItem(true);
         }
@@ -121,25 +364,64 @@ public class BottomMenuLayout extends LinearLayout {
     private void addOnPageChangeListener() {
         switch (bind) {
             case VIEW_PAGE_1:
+                // 先移除再添加, 避免重复注册
+                viewPager1.removeOnPageChangeListener(onPageChangeListener);
                 viewPager1.addOnPageChangeListener(onPageChangeListener);
                 break;
             case VIEW_PAGE_2:
-                viewPager2.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
-                    @Override
-                    public void onPageSelected(int position) {
-                        onPageChangeListener.onPageSelected(position);
-                    }
-                });
+                viewPager2.unregisterOnPageChangeCallback(onPageChangeCallback);
+                viewPager2.registerOnPageChangeCallback(onPageChangeCallback);
                 break;
             default:
                 break;
         }
     }
 
+    private void removeOnPageChangeListener() {
+        if (viewPager1 != null) {
+            viewPager1.removeOnPageChangeListener(onPageChangeListener);
+        }
+        if (viewPager2 != null) {
+            viewPager2.unregisterOnPageChangeCallback(onPageChangeCallback);
+        }
+    }
+
+    /**
+     * 根据滑动进度在相邻两个 item 之间过渡, 只 invalidate 涉及的两个 item, 不创建对象
+     */
+    private void onMenuScrolled(int position, float positionOffset) {
+        if (scrollingPosition != -1 && scrollingPosition != position) {
+            finishScrolling();
+        }
+        if (positionOffset == 0f || position < 0 || position + 1 >= menuItemViewList.size()) {
+            finishScrolling();
+            return;
+        }
+        scrollingPosition = position;
+        menuItemViewList.get(position).setSelectionFraction(1f - positionOffset);
+        menuItemViewList.get(position + 1).setSelectionFraction(positionOffset);
+    }
+
+    /**
+     * 结束过渡, 恢复涉及的 item 的选中状态
+     */
+    private void finishScrolling() {
+        if (scrollingPosition == -1) {
+            return;
+        }
+        for (int i = scrollingPosition; i <= scrollingPosition + 1 && i < menuItemViewList.size(); i++) {
+            menuItemViewList.get(i).refreshItem(i == menuState.getSelectedPosition());
+        }
+        scrollingPosition = -1;
+    }
+
     /**
      * 检查个数是否一致
      */
     private void checkCount(int childCount) {
+        if (childCount == 0) {
+            return;
+        }
         switch (bind) {
             case VIEW_PAGE_1:
                 if (viewPager1.getAdapter().getCount() != childCount) {
@@ -160,178 +442,1318 @@ public class BottomMenuLayout extends LinearLayout {
      * 增加Item
      */
     public void addItem(MenuItemView menuItemView) {
-        LinearLayout.LayoutParams layoutParams = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
-        layoutParams.weight = 1;
-        menuItemView.setLayoutParams(layoutParams);
-        addView(menuItemView);
-        initView();
+        restoreReleasedItems();
+        insertItem(menuItemViewList.size(), menuItemView);
     }
 
     /**
-     * 根据索引移除Item
+     * 一次性增加多个Item, 只触发一次 layout
      */
-    public void removeItem(int position) {
-        if (position >= 0 && position < menuItemViewList.size()) {
-            MenuItemView item = menuItemViewList.get(position);
-            if (menuItemViewList.contains(item)) {
-                resetCurrentItem();
-                removeViewAt(position);
-                initView();
+    public void addItems(List<MenuItemView> menuItemViews) {
+        restoreReleasedItems();
+        if (menuItemViews.isEmpty()) {
+            return;
+        }
+        checkCount(menuItemViewList.size() + menuItemViews.size());
+        Trace.beginSection(MenuMetrics.TRACE_ADD_ITEMS);
+        try {
+            for (MenuItemView menuItemView : menuItemViews) {
+                addViewInLayout(menuItemView, -1, generateItemLayoutParams(), true);
+                prepareItem(menuItemView);
+                menuItemViewList.add(menuItemView);
+                reportInflateTime(menuItemView);
+                render(menuState.insertItem(menuItemViewList.size() - 1, menuItemView.getKey()));
             }
+        } finally {
+            Trace.endSection();
         }
+        requestLayout();
+        invalidate();
     }
 
-    private class MenuItemOnClickListener implements OnClickListener {
+    /**
+     * 在 executor 中创建所有Item, 完成后在主线程一次性添加
+     */
+    public AddItemsTask addItemsAsync(List<MenuItemBuilder> builders, Executor executor) {
+        return addItemsAsync(builders, executor, null);
+    }
+
+    /**
+     * 在 executor 中创建所有Item, 完成后在主线程一次性添加并回调.
+     * 后台线程不使用页面的 LayoutInflater(其 Factory 非线程安全), 见 {@link MenuLayoutInflater}
+     *
+     * @return 可在主线程取消的任务, 页面销毁时取消, 取消后或菜单已被回收时不再添加
+     */
+    public AddItemsTask addItemsAsync(List<MenuItemBuilder> builders, Executor executor, OnItemsAddedListener onItemsAddedListener) {
+        AddItemsTask task = new AddItemsTask(this, builders, onItemsAddedListener);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * {@link #addItemsAsync(List, Executor, OnItemsAddedListener)} 的创建任务, 只弱引用菜单
+     */
+    public static final class AddItemsTask implements Runnable {
 
-        private int thisPosition;
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        private final WeakReference<BottomMenuLayout> menuLayoutReference;
+        private final List<MenuItemBuilder> builderList;
+        private final OnItemsAddedListener onItemsAddedListener;
+        private volatile boolean cancelled;
 
-        public MenuItemOnClickListener(int thisPosition) {
-            this.thisPosition = thisPosition;
+        private AddItemsTask(BottomMenuLayout menuLayout, List<MenuItemBuilder> builders, OnItemsAddedListener onItemsAddedListener) {
+            this.menuLayoutReference = new WeakReference<>(menuLayout);
+            this.builderList = new ArrayList<>(builders);
+            this.onItemsAddedListener = onItemsAddedListener;
         }
 
         @Override
-        public void onClick(View v) {
-            switch (bind) {
-                case VIEW_PAGE_1:
-                    if (thisPosition == currentPosition) {
-                        // 重复点击, 使用 setCurrentItem 不会回调 onPageSelected(), 所以在此处需要回调点击监听
-                        if (onMenuItemSelectedListener != null) {
-                            onMenuItemSelectedListener.onItemSelected(getMenuItem(thisPosition), currentPosition, thisPosition);
-                        }
-                    } else {
-                        viewPager1.setCurrentItem(thisPosition, smoothScroll);
-                    }
-                    break;
-                case VIEW_PAGE_2:
-                    if (thisPosition == currentPosition) {
-                        // 重复点击, 使用 setCurrentItem 不会回调 onPageSelected(), 所以在此处需要回调点击监听
-                        if (onMenuItemSelectedListener != null) {
-                            onMenuItemSelectedListener.onItemSelected(getMenuItem(thisPosition), currentPosition, thisPosition);
-                        }
-                    } else {
-                        viewPager2.setCurrentItem(thisPosition, smoothScroll);
+        public void run() {
+            final List<MenuItemView> menuItemViews = new ArrayList<>(builderList.size());
+            try {
+                for (MenuItemBuilder builder : builderList) {
+                    if (cancelled || menuLayoutReference.get() == null) {
+                        return;
                     }
-                    break;
-                default:
-                    if (onMenuItemSelectedListener != null) {
-                        onMenuItemSelectedListener.onItemSelected(getMenuItem(thisPosition), currentPosition, thisPosition);
+                    Context context = builder.context;
+                    menuItemViews.add(new MenuItemView(context).create(builder, new MenuLayoutInflater(context)));
+                }
+            } catch (final RuntimeException e) {
+                // 与同步创建保持一致, 异常抛到主线程
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        throw e;
                     }
-                    selectItem(thisPosition);
-                    break;
+                });
+                return;
             }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    BottomMenuLayout menuLayout = menuLayoutReference.get();
+                    if (cancelled || menuLayout == null) {
+                        return;
+                    }
+                    menuLayout.addItems(menuItemViews);
+                    if (onItemsAddedListener != null) {
+                        onItemsAddedListener.onItemsAdded(menuItemViews);
+                    }
+                }
+            });
         }
-    }
 
-    /**
-     * 选中 Item
-     */
-    private void selectItem(int position) {
-        resetCurrentItem();
-        currentPosition = position;
-        menuItemViewList.get(currentPosition).refreshItem(true);
+        /**
+         * 取消添加, 尚未创建的 item 不再创建, 已创建的不再添加到菜单
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
     }
 
     /**
-     * 重置当前选中 Item 的状态
+     * 在指定位置插入Item
      */
-    private void resetCurrentItem() {
-        if (currentPosition < menuItemViewList.size()) {
-            menuItemViewList.get(currentPosition).refreshItem(false);
+    public void insertItem(int position, MenuItemView menuItemView) {
+        restoreReleasedItems();
+        if (position < 0 || position > menuItemViewList.size()) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + menuItemViewList.size());
         }
+        checkCount(menuItemViewList.size() + 1);
+        addView(menuItemView, position, generateItemLayoutParams());
+        prepareItem(menuItemView);
+        menuItemViewList.add(position, menuItemView);
+        reportInflateTime(menuItemView);
+        render(menuState.insertItem(position, menuItemView.getKey()));
     }
 
     /**
-     * 设置当前选中
+     * 根据索引移除Item
      */
-    public void setCurrentPosition(int currentPosition) {
-        if (viewPager1 != null) {
-            viewPager1.setCurrentItem(currentPosition, smoothScroll);
-        } else {
-            if (onMenuItemSelectedListener != null) {
-                onMenuItemSelectedListener.onItemSelected(getMenuItem(currentPosition), this.currentPosition, currentPosition);
+    public void removeItem(int position) {
+        restoreReleasedItems();
+        if (position >= 0 && position < menuItemViewList.size()) {
+            checkCount(menuItemViewList.size() - 1);
+            MenuItemView item = menuItemViewList.remove(position);
+            item.setOnClickListener(null);
+            removeViewAt(position);
+
+            if (position == menuState.getSelectedPosition()) {
+                item.refreshItem(false);
             }
-            selectItem(currentPosition);
+            // 与之前保持一致: 由同一位置的 item 接替选中状态
+            render(menuState.removeItem(position));
         }
     }
 
     /**
-     * 设置未读数
+     * 移动Item, 选中状态及角标跟随 item 移动
      */
-    public void setUnreadNum(int position, int unreadNum) {
-        menuItemViewList.get(position).setUnreadNum(unreadNum);
+    public void moveItem(int fromPosition, int toPosition) {
+        restoreReleasedItems();
+        int size = menuItemViewList.size();
+        if (fromPosition < 0 || fromPosition >= size || toPosition < 0 || toPosition >= size) {
+            throw new IndexOutOfBoundsException("from: " + fromPosition + ", to: " + toPosition + ", size: " + size);
+        }
+        if (fromPosition == toPosition) {
+            return;
+        }
+        MenuItemView item = menuItemViewList.remove(fromPosition);
+        menuItemViewList.add(toPosition, item);
+        detachViewFromParent(fromPosition);
+        attachViewToParent(item, toPosition, item.getLayoutParams());
+        render(menuState.moveItem(fromPosition, toPosition));
+        requestLayout();
+        invalidate();
     }
 
     /**
-     * 显示提示消息
+     * 替换Item, 若替换的是选中的 item 则新 item 继承选中状态
      */
-    public void visibleMsg(int position, String msg) {
-        menuItemViewList.get(position).visibleMsg(msg);
+    public void replaceItem(int position, MenuItemView menuItemView) {
+        restoreReleasedItems();
+        if (position < 0 || position >= menuItemViewList.size()) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + menuItemViewList.size());
+        }
+        MenuItemView oldItem = menuItemViewList.get(position);
+        if (oldItem == menuItemView) {
+            return;
+        }
+        oldItem.setOnClickListener(null);
+        removeViewAt(position);
+        addView(menuItemView, position, generateItemLayoutParams());
+        prepareItem(menuItemView);
+        menuItemViewList.set(position, menuItemView);
+        reportInflateTime(menuItemView);
+        render(menuState.replaceItem(position, menuItemView.getKey()));
+        menuItemView.refreshItem(position == menuState.getSelectedPosition());
     }
 
     /**
-     * 隐藏提示消息
+     * 替换Item
      */
-    public void goneMsg(int position) {
-        menuItemViewList.get(position).goneMsg();
+    public void replaceItem(int position, MenuItemBuilder builder) {
+        replaceItem(position, MenuItemViewPool.obtain(getContext(), builder));
     }
 
     /**
-     * 显示小红点
+     * 设置全部Item, 与当前 item 按 {@link MenuItemBuilder#key(String)} 比较,
+     * key 相同的 item 复用原 MenuItemView(保留角标), 内容变化时重新绑定新的 builder, 仅新增、移除、移动有变化的 item
      */
-    public void visibleMsgPoint(int position) {
-        menuItemViewList.get(position).visibleMsgPoint();
+    public void setItems(List<MenuItemBuilder> builders) {
+        Trace.beginSection(MenuMetrics.TRACE_SET_ITEMS);
+        try {
+            updateItems(builders);
+        } finally {
+            Trace.endSection();
+        }
     }
 
-    /**
-     * 隐藏小红点
-     */
-    public void goneMsgPoint(int position) {
-        menuItemViewList.get(position).goneMsgPoint();
-    }
+    private void updateItems(List<MenuItemBuilder> builders) {
+        restoreReleasedItems();
+        int newSize = builders.size();
+        checkCount(newSize);
 
-    public int getCurrentPosition() {
-        return currentPosition;
-    }
+        List<String> oldKeys = new ArrayList<>(menuItemViewList.size());
+        for (MenuItemView item : menuItemViewList) {
+            oldKeys.add(item.getKey());
+        }
+        List<String> newKeys = new ArrayList<>(newSize);
+        for (MenuItemBuilder builder : builders) {
+            newKeys.add(builder.getKey());
+        }
+        int[] match = MenuItemDiff.match(oldKeys, newKeys);
 
-    public void setSmoothScroll(boolean smoothScroll) {
-        this.smoothScroll = smoothScroll;
+        List<MenuItemView> newItemList = new ArrayList<>(newSize);
+        boolean[] reused = new boolean[menuItemViewList.size()];
+        // rebound: key 相同但内容变化, 复用原 View 重新绑定的 item
+        boolean[] rebound = new boolean[newSize];
+        boolean changed = false;
+        for (int i = 0; i < newSize; i++) {
+            MenuItemBuilder builder = builders.get(i);
+            if (match[i] == MenuItemDiff.NO_MATCH) {
+                newItemList.add(obtainItem(builder));
+            } else {
+                reused[match[i]] = true;
+                MenuItemView item = menuItemViewList.get(match[i]);
+                if (item.getBuilder() != builder && !builder.hasSameContent(item.getBuilder())) {
+                    item.bind(builder);
+                    rebound[i] = true;
+                    changed = true;
+                }
+                newItemList.add(item);
+            }
+        }
+
+        // 移除不再需要的 item
+        for (int i = reused.length - 1; i >= 0; i--) {
+            if (!reused[i]) {
+                MenuItemView item = menuItemViewList.get(i);
+                item.setOnClickListener(null);
+                removeViewInLayout(item);
+            }
+        }
+
+        // 按新顺序调整, 仅处理位置变化或新增的 item
+        for (int i = 0; i < newSize; i++) {
+            MenuItemView item = newItemList.get(i);
+            if (getChildAt(i) == item) {
+                continue;
+            }
+            changed = true;
+            if (item.getParent() == this) {
+                detachViewFromParent(item);
+                attachViewToParent(item, i, item.getLayoutParams());
+            } else {
+                addViewInLayout(item, i, generateItemLayoutParams(), true);
+                prepareItem(item);
+                item.refreshItem(false);
+                reportInflateTime(item);
+            }
+        }
+
+        menuItemViewList.clear();
+        menuItemViewList.addAll(newItemList);
+
+        render(menuState.setItems(newKeys, match));
+
+        // 重新绑定会清空角标, 按状态恢复选中及角标
+        int selectedPosition = menuState.getSelectedPosition();
+        for (int i = 0; i < newSize; i++) {
+            if (rebound[i]) {
+                MenuItemView item = newItemList.get(i);
+                prepareItem(item);
+                item.refreshItem(i == selectedPosition);
+                renderBadge(item, menuState.getBadgeKind(i), menuState.getUnreadNum(i), menuState.getMsg(i));
+            }
+        }
+
+        if (changed || reused.length != newSize) {
+            requestLayout();
+            invalidate();
+        }
     }
 
-    public MenuItemView getMenuItem(int position) {
-        return menuItemViewList.get(position);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mainHandler != null) {
+            mainHandler.removeCallbacks(releaseItemsRunnable);
+        }
+        restoreReleasedItems();
+        windowDetached = false;
+        updateMetricsCounted();
+        if (badgeStore != null && badgeStore.getMenuLayout() == null) {
+            // store 移除期间已交给其他菜单时不抢回
+            badgeStore.attach(this);
+        }
+        if (fragmentHost != null) {
+            fragmentHost.onAttached(getContext());
+        }
+        if (appContext == null) {
+            appContext = getContext().getApplicationContext();
+            appContext.registerComponentCallbacks(componentCallbacks);
+        }
     }
 
-    /**
-     * 当 View 被销毁的时候, 保存数据
-     */
     @Override
-    protected Parcelable onSaveInstanceState() {
-        Bundle bundle = new Bundle();
-        bundle.putParcelable(BUNDLE_INSTANCE, super.onSaveInstanceState());
-        bundle.putInt(BUNDLE_CURRENT_POSITION, currentPosition);
-        return bundle;
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // 移除后不再计时, 未清除监听就被回收的菜单不会一直开启统计
+        windowDetached = true;
+        updateMetricsCounted();
+        if (badgeStore != null) {
+            badgeStore.detach(this);
+        }
+        if (fragmentHost != null) {
+            fragmentHost.onDetached();
+        }
+        if (appContext != null) {
+            appContext.unregisterComponentCallbacks(componentCallbacks);
+            appContext = null;
+        }
+        tapCoalescer.cancel();
+        if (MenuItemViewPool.isEnabled()) {
+            // 分发 detach 期间不修改子 View, 之后仍未重新显示才放回复用池
+            if (mainHandler == null) {
+                mainHandler = new Handler(Looper.getMainLooper());
+            }
+            mainHandler.post(releaseItemsRunnable);
+        }
     }
 
     /**
-     * 恢复数据
+     * 释放 item 未显示的图标及角标背景, 以及缓存这些图标的 Bitmap 缓存(光栅化、异步加载), 需要时重新创建;
+     * 不影响当前显示的内容, 回到前台时无需重新加载.
+     * 进程内的 Drawable 缓存及复用池用于跨页面共享, 仅在进入后台列表(BACKGROUND 及以上)或内存极低时清空, 退到后台(UI_HIDDEN)时保留
+     *
+     * @param clearShared 是否同时清空 Drawable 缓存及复用池
      */
-    @Override
-    protected void onRestoreInstanceState(Parcelable state) {
-        if (state instanceof Bundle) {
-            Bundle bundle = (Bundle) state;
-            currentPosition = bundle.getInt(BUNDLE_CURRENT_POSITION);
-            // 重置所有按钮状态
-            resetCurrentItem();
-            // 恢复点击的条目颜色
-            menuItemViewList.get(currentPosition).refreshItem(true);
-            super.onRestoreInstanceState(bundle.getParcelable(BUNDLE_INSTANCE));
-        } else {
-            super.onRestoreInstanceState(state);
+    private void trimMemory(boolean clearShared) {
+        for (MenuItemView item : menuItemViewList) {
+            item.trimMemory();
+        }
+        MenuIconRasterCache.clear();
+        MenuIconLoader.clearMemoryCache();
+        if (clearShared) {
+            MenuDrawableCache.trimMemory();
+            MenuItemViewPool.clear();
         }
     }
 
-    public void setOnMenuItemSelectedListener(OnMenuItemSelectedListener onMenuItemSelectedListener) {
-        this.onMenuItemSelectedListener = onMenuItemSelectedListener;
+    /**
+     * 将 item 放回复用池, 仅当全部 item 均由复用池创建时放回, 保证重新显示时可以按 builder 恢复
+     */
+    private void releaseItems() {
+        if (releasedBuilders != null || menuItemViewList.isEmpty() || !MenuItemViewPool.isEnabled()) {
+            return;
+        }
+        for (MenuItemView item : menuItemViewList) {
+            // 已被重建后的菜单取回的 item 不再处理
+            if (!MenuItemViewPool.isPooled(item) || item.getParent() != this) {
+                return;
+            }
+        }
+        finishScrolling();
+        releasePress();
+        List<MenuItemBuilder> builders = new ArrayList<>(menuItemViewList.size());
+        for (MenuItemView item : menuItemViewList) {
+            builders.add(item.getBuilder());
+            item.setOnClickListener(null);
+        }
+        removeAllViews();
+        for (MenuItemView item : menuItemViewList) {
+            MenuItemViewPool.release(item);
+        }
+        menuItemViewList.clear();
+        releasedBuilders = builders;
+    }
+
+    /**
+     * 重新从复用池取出 item, 并按状态渲染选中及角标
+     */
+    private void restoreReleasedItems() {
+        if (releasedBuilders == null) {
+            return;
+        }
+        List<MenuItemBuilder> builders = releasedBuilders;
+        releasedBuilders = null;
+        int selectedPosition = menuState.getSelectedPosition();
+        for (int i = 0; i < builders.size(); i++) {
+            MenuItemView item = MenuItemViewPool.obtain(getContext(), builders.get(i));
+            addViewInLayout(item, -1, generateItemLayoutParams(), true);
+            prepareItem(item);
+            menuItemViewList.add(item);
+            item.refreshItem(i == selectedPosition);
+            renderBadge(item, menuState.getBadgeKind(i), menuState.getUnreadNum(i), menuState.getMsg(i));
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 创建 item, 恢复状态期间优先取回保留的 item
+     */
+    private MenuItemView obtainItem(MenuItemBuilder builder) {
+        if (retainedItems != null) {
+            Iterator<MenuItemView> iterator = retainedItems.iterator();
+            while (iterator.hasNext()) {
+                MenuItemView item = iterator.next();
+                if (TextUtils.equals(item.getKey(), builder.getKey())) {
+                    iterator.remove();
+                    if (MenuItemViewPool.canReattach(item)) {
+                        if (item.getParent() != null) {
+                            ((ViewGroup) item.getParent()).removeView(item);
+                        }
+                        return item.bind(builder);
+                    }
+                }
+            }
+        }
+        return MenuItemViewPool.obtain(getContext(), builder);
+    }
+
+    /**
+     * 设置 item 的点击监听, 开启共用点击效果时移除 item 自身的点击背景
+     */
+    private void prepareItem(MenuItemView item) {
+        item.setOnClickListener(menuItemOnClickListener);
+        if (sharedPressFeedback) {
+            item.removeClickDrawable();
+        }
+    }
+
+    /**
+     * 是否使用共用点击效果, 开启后整个菜单只使用一个点击效果 Drawable
+     */
+    public void setSharedPressFeedback(boolean sharedPressFeedback) {
+        if (this.sharedPressFeedback == sharedPressFeedback) {
+            return;
+        }
+        this.sharedPressFeedback = sharedPressFeedback;
+        if (sharedPressFeedback) {
+            for (MenuItemView item : menuItemViewList) {
+                item.removeClickDrawable();
+            }
+            if (pressDrawable == null) {
+                setPressDrawable(null);
+            }
+        } else {
+            releasePress();
+            for (MenuItemView item : menuItemViewList) {
+                item.restoreClickDrawable();
+            }
+        }
+    }
+
+    /**
+     * 设置共用点击效果, 为 null 时使用主题的 selectableItemBackground
+     */
+    public void setPressDrawable(Drawable pressDrawable) {
+        if (this.pressDrawable != null) {
+            this.pressDrawable.setCallback(null);
+            unscheduleDrawable(this.pressDrawable);
+        }
+        if (pressDrawable == null) {
+            TypedArray typedArray = getContext().obtainStyledAttributes(new int[]{android.R.attr.selectableItemBackground});
+            pressDrawable = typedArray.getDrawable(0);
+            typedArray.recycle();
+        }
+        this.pressDrawable = pressDrawable;
+        pressedItem = null;
+        if (pressDrawable != null) {
+            pressDrawable.setCallback(this);
+            pressDrawable.setState(STATE_NORMAL);
+            pressDrawable.setVisible(getWindowVisibility() == VISIBLE, false);
+        }
+        invalidate();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (sharedPressFeedback && pressDrawable != null) {
+            updatePress(ev);
+        }
+        boolean handled = super.dispatchTouchEvent(ev);
+        // 在 item 处理之后, 抬起时 item 已发出点击
+        if (onMenuItemPressListener != null || prefetchOnPress) {
+            trackPress(ev);
+        }
+        return handled;
+    }
+
+    /**
+     * 按下 item 时回调并提前准备目标页面, 移出 item 或触摸被取消时取消
+     */
+    private void trackPress(MotionEvent ev) {
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                MenuItemView item = findItemUnder(ev.getX(), ev.getY());
+                if (item != null) {
+                    pressPosition = menuItemViewList.indexOf(item);
+                    if (prefetchOnPress) {
+                        prefetchPage(pressPosition);
+                    }
+                    if (onMenuItemPressListener != null) {
+                        onMenuItemPressListener.onItemPressed(item, pressPosition);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (pressPosition != -1 && (pressPosition >= menuItemViewList.size()
+                        || findItemUnder(ev.getX(), ev.getY()) != menuItemViewList.get(pressPosition))) {
+                    cancelPress();
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (pressPosition != -1) {
+                    pressPosition = -1;
+                    // 点击已切换到目标页面后再恢复
+                    post(restoreOffscreenPageLimitRunnable);
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                cancelPress();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void cancelPress() {
+        if (pressPosition == -1) {
+            return;
+        }
+        int position = pressPosition;
+        pressPosition = -1;
+        restoreOffscreenPageLimit();
+        if (onMenuItemPressListener != null && position < menuItemViewList.size()) {
+            onMenuItemPressListener.onItemPressCanceled(menuItemViewList.get(position), position);
+        }
+    }
+
+    /**
+     * 在点击之前提前创建目标页面, 当前页面及已在 offscreenPageLimit 范围内的页面不处理
+     */
+    private void prefetchPage(int position) {
+        removeCallbacks(restoreOffscreenPageLimitRunnable);
+        int distance = Math.abs(position - menuState.getSelectedPosition());
+        if (distance == 0) {
+            return;
+        }
+        if (bind == Bind.VIEW_PAGE_1 && distance > viewPager1.getOffscreenPageLimit()) {
+            // PagerAdapter 没有单独创建某一页的接口, 只能临时增大 offscreenPageLimit, 中间的页面也会创建
+            saveOffscreenPageLimit(viewPager1.getOffscreenPageLimit());
+            viewPager1.setOffscreenPageLimit(distance);
+        } else if (bind == Bind.VIEW_PAGE_2 && distance > viewPager2.getOffscreenPageLimit()) {
+            prefetchPage2(position);
+        }
+    }
+
+    /**
+     * ViewPager2 只创建目标页面: 通过 adapter 创建并绑定目标页面的 ViewHolder, 放入 RecyclerView 的复用池,
+     * 切换时直接取用, 不再 inflate(FragmentStateAdapter 在绑定时创建 Fragment)
+     */
+    @SuppressWarnings("unchecked")
+    private void prefetchPage2(int position) {
+        View child = viewPager2.getChildAt(0);
+        RecyclerView.Adapter adapter = viewPager2.getAdapter();
+        if (position == prefetchedPage2Position || !(child instanceof RecyclerView)
+                || adapter == null || position >= adapter.getItemCount()) {
+            return;
+        }
+        RecyclerView recyclerView = (RecyclerView) child;
+        if (recyclerView.findViewHolderForAdapterPosition(position) != null) {
+            return;
+        }
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(recyclerView, adapter.getItemViewType(position));
+        adapter.bindViewHolder(holder, position);
+        recyclerView.getRecycledViewPool().putRecycledView(holder);
+        prefetchedPage2Position = position;
+    }
+
+    private void saveOffscreenPageLimit(int offscreenPageLimit) {
+        if (!offscreenPageLimitChanged) {
+            originalOffscreenPageLimit = offscreenPageLimit;
+            offscreenPageLimitChanged = true;
+        }
+    }
+
+    private void restoreOffscreenPageLimit() {
+        removeCallbacks(restoreOffscreenPageLimitRunnable);
+        if (!offscreenPageLimitChanged) {
+            return;
+        }
+        offscreenPageLimitChanged = false;
+        if (bind == Bind.VIEW_PAGE_1) {
+            viewPager1.setOffscreenPageLimit(originalOffscreenPageLimit);
+        }
+    }
+
+    /**
+     * 按下时将点击效果移动到按下的 item, 移出 item、抬起、取消时释放
+     */
+    private void updatePress(MotionEvent ev) {
+        float x = ev.getX();
+        float y = ev.getY();
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                MenuItemView item = findItemUnder(x, y);
+                if (item != null) {
+                    pressedItem = item;
+                    pressBounds.set(item.getLeft(), item.getTop(), item.getRight(), item.getBottom());
+                    pressDrawable.setBounds(pressBounds);
+                    DrawableCompat.setHotspot(pressDrawable, x, y);
+                    pressDrawable.setState(STATE_PRESSED);
+                    invalidate(pressBounds);
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (pressedItem != null) {
+                    if (pressBounds.contains((int) x, (int) y)) {
+                        DrawableCompat.setHotspot(pressDrawable, x, y);
+                    } else {
+                        releasePress();
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                releasePress();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void releasePress() {
+        if (pressedItem != null) {
+            pressedItem = null;
+            if (pressDrawable != null) {
+                pressDrawable.setState(STATE_NORMAL);
+            }
+            invalidate(pressBounds);
+        }
+    }
+
+    private MenuItemView findItemUnder(float x, float y) {
+        for (MenuItemView item : menuItemViewList) {
+            if (item.getVisibility() == VISIBLE && x >= item.getLeft() && x < item.getRight()
+                    && y >= item.getTop() && y < item.getBottom()) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        // 绘制在 item 下方, 与 item 背景的效果一致
+        if (sharedPressFeedback && pressDrawable != null) {
+            pressDrawable.draw(canvas);
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == pressDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (pressDrawable != null) {
+            pressDrawable.jumpToCurrentState();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (pressDrawable != null) {
+            pressDrawable.setVisible(visibility == VISIBLE, false);
+        }
+        if (fragmentHost != null && visibility == VISIBLE) {
+            // 页面回到前台后补上保存状态期间未能切换的 Fragment
+            fragmentHost.showPending();
+        }
+    }
+
+    private LinearLayout.LayoutParams generateItemLayoutParams() {
+        LinearLayout.LayoutParams layoutParams = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+        layoutParams.weight = 1;
+        return layoutParams;
+    }
+
+    /**
+     * 所有 item 共用一个点击监听, 通过 item 在列表中的位置确定点击的索引
+     */
+    private OnClickListener menuItemOnClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (!menuItemViewList.contains(v)) {
+                return;
+            }
+            if (onMetricsListener != null) {
+                clickTimeNanos = System.nanoTime();
+            }
+            tapCoalescer.tap((MenuItemView) v);
+        }
+    };
+
+    /**
+     * 分发点击: 点击当前选中为重复选中, 否则切换选中
+     */
+    private void dispatchTap(int position) {
+        int currentPosition = menuState.getSelectedPosition();
+        if (position == currentPosition) {
+            // 重复点击, 使用 setCurrentItem 不会回调 onPageSelected(), 所以在此处需要回调
+            notifyItemReselected(position);
+            return;
+        }
+        switch (bind) {
+            case VIEW_PAGE_1:
+                viewPager1.setCurrentItem(position, smoothScroll);
+                break;
+            case VIEW_PAGE_2:
+                viewPager2.setCurrentItem(position, smoothScroll);
+                break;
+            default:
+                notifyItemSelected(currentPosition, position);
+                selectItem(position);
+                break;
+        }
+    }
+
+    /**
+     * 设置点击合并: {@link #TAP_COALESCE_NONE} 不合并(默认); {@link #TAP_COALESCE_FRAME} 合并同一帧内的点击;
+     * 大于 0 时合并 windowMillis 毫秒内的点击. 只分发合并期间的最后一次点击, 一帧内连续点击 a、c 只切换到 c,
+     * 代价是第一次点击也要等到合并结束(下一帧或 windowMillis 后)才分发
+     */
+    public void setTapCoalesceWindow(long windowMillis) {
+        setTapCoalesceWindow(windowMillis, false);
+    }
+
+    /**
+     * 设置点击合并, 见 {@link #setTapCoalesceWindow(long)}
+     *
+     * @param leading 是否立即分发第一次点击. 为 true 时响应没有延迟, 但一次合并内会分发两次(第一次及最后一次),
+     *                连续点击 a、c 时会先切换到 a 再切换到 c
+     */
+    public void setTapCoalesceWindow(long windowMillis, boolean leading) {
+        tapCoalescer.setWindowMillis(windowMillis, leading);
+    }
+
+    /**
+     * 选中 Item
+     */
+    private void selectItem(int position) {
+        render(menuState.select(position));
+    }
+
+    /**
+     * 回调选中监听, 由点击触发时上报点击到回调的耗时
+     */
+    private void notifyItemSelected(int previousPosition, int position) {
+        if (onMenuItemSelectedListener != null) {
+            onMenuItemSelectedListener.onItemSelected(getMenuItem(position), previousPosition, position);
+        }
+        if (clickTimeNanos != 0) {
+            if (onMetricsListener != null) {
+                onMetricsListener.onClickToSelected(position, System.nanoTime() - clickTimeNanos);
+            }
+            clickTimeNanos = 0;
+        }
+    }
+
+    /**
+     * 回调重复选中, 未设置重复选中监听时与之前一致回调选中监听
+     */
+    private void notifyItemReselected(int position) {
+        if (onMenuItemReselectedListener == null) {
+            notifyItemSelected(position, position);
+            return;
+        }
+        clickTimeNanos = 0;
+        onMenuItemReselectedListener.onItemReselected(getMenuItem(position), position);
+    }
+
+    /**
+     * 设置当前选中
+     */
+    public void setCurrentPosition(int currentPosition) {
+        if (viewPager1 != null) {
+            viewPager1.setCurrentItem(currentPosition, smoothScroll);
+        } else {
+            notifyItemSelected(menuState.getSelectedPosition(), currentPosition);
+            selectItem(currentPosition);
+        }
+    }
+
+    /**
+     * 设置未读数
+     */
+    public void setUnreadNum(int position, int unreadNum) {
+        render(menuState.setUnreadNum(position, unreadNum));
+    }
+
+    /**
+     * 显示提示消息
+     */
+    public void visibleMsg(int position, String msg) {
+        render(menuState.visibleMsg(position, msg));
+    }
+
+    /**
+     * 隐藏提示消息
+     */
+    public void goneMsg(int position) {
+        render(menuState.goneMsg(position));
+    }
+
+    /**
+     * 显示小红点
+     */
+    public void visibleMsgPoint(int position) {
+        render(menuState.visibleMsgPoint(position));
+    }
+
+    /**
+     * 隐藏小红点
+     */
+    public void goneMsgPoint(int position) {
+        render(menuState.goneMsgPoint(position));
+    }
+
+    /**
+     * 开始批量更新, 修改在 {@link MenuItemEditor#commit()} 时一次性应用
+     */
+    public MenuItemEditor beginUpdate() {
+        return new MenuItemEditor(this);
+    }
+
+    /**
+     * 批量更新
+     */
+    public void batch(OnBatchUpdateListener onBatchUpdateListener) {
+        MenuItemEditor editor = beginUpdate();
+        onBatchUpdateListener.onBatchUpdate(editor);
+        editor.commit();
+    }
+
+    void applyUpdate(MenuItemEditor editor) {
+        boolean nested = startUpdate();
+        try {
+            editor.apply();
+        } finally {
+            endUpdate(nested);
+        }
+    }
+
+    /**
+     * 获取当前状态的副本, 可在其他线程修改副本并通过 {@link MenuState#diff(MenuState)} 计算变更
+     */
+    public MenuState getMenuState() {
+        return menuState.copy();
+    }
+
+    /**
+     * 应用变更(主线程), 超出范围或与当前状态一致的部分忽略, 整个菜单只触发一次 layout 及 invalidate
+     */
+    public void applyChange(MenuChange change) {
+        boolean nested = startUpdate();
+        Trace.beginSection(MenuMetrics.TRACE_APPLY_CHANGE);
+        try {
+            render(menuState.apply(change));
+        } finally {
+            Trace.endSection();
+            endUpdate(nested);
+        }
+    }
+
+    /**
+     * 根据变更渲染 item
+     */
+    private void render(MenuChange change) {
+        if (change.isEmpty() || releasedBuilders != null) {
+            // item 已放回复用池时只修改状态, 重新取出时按状态渲染
+            return;
+        }
+        if (change.isSelectionChanged()) {
+            int deselectedPosition = change.getDeselectedPosition();
+            if (deselectedPosition != MenuState.NO_POSITION && deselectedPosition < menuItemViewList.size()) {
+                menuItemViewList.get(deselectedPosition).refreshItem(false);
+            }
+            menuItemViewList.get(change.getSelectedPosition()).refreshItem(true);
+            if (fragmentHost != null) {
+                fragmentHost.show(change.getSelectedPosition());
+            }
+        }
+        if (onMetricsListener != null && change.getBadgeChangeCount() > 0) {
+            countBadgeUpdates(change.getBadgeChangeCount());
+        }
+        for (int i = 0; i < change.getBadgeChangeCount(); i++) {
+            renderBadge(menuItemViewList.get(change.getBadgePosition(i)), change.getBadgeKind(i), change.getUnreadNum(i), change.getMsg(i));
+        }
+    }
+
+    private static void renderBadge(MenuItemView item, int kind, int unreadNum, String msg) {
+        switch (kind) {
+            case MenuState.BADGE_UNREAD:
+                item.setUnreadNum(unreadNum);
+                break;
+            case MenuState.BADGE_MSG:
+                item.visibleMsg(msg);
+                break;
+            case MenuState.BADGE_POINT:
+                item.visibleMsgPoint();
+                break;
+            default:
+                // 未读数 <= 0 时隐藏所有角标
+                item.setUnreadNum(0);
+                break;
+        }
+    }
+
+    /**
+     * 统计角标更新次数, 每满一秒上报一次更新频率
+     */
+    private void countBadgeUpdates(int count) {
+        long now = System.nanoTime();
+        if (badgeUpdateCount == 0) {
+            badgeWindowStartNanos = now;
+        }
+        badgeUpdateCount += count;
+        long elapsedNanos = now - badgeWindowStartNanos;
+        if (elapsedNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            onMetricsListener.onBadgeUpdateRate(badgeUpdateCount * (float) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+            badgeUpdateCount = 0;
+        }
+    }
+
+    /**
+     * 上报 item 创建耗时, 每个 item 只上报一次
+     */
+    private void reportInflateTime(MenuItemView item) {
+        if (onMetricsListener != null) {
+            long inflateTimeNanos = item.takeInflateTimeNanos();
+            if (inflateTimeNanos > 0) {
+                onMetricsListener.onItemInflated(item, inflateTimeNanos);
+            }
+        }
+    }
+
+    /**
+     * 开始屏蔽 requestLayout
+     *
+     * @return 是否为嵌套调用
+     */
+    private boolean startUpdate() {
+        boolean nested = inUpdate;
+        inUpdate = true;
+        return nested;
+    }
+
+    private void endUpdate(boolean nested) {
+        if (!nested) {
+            inUpdate = false;
+            if (layoutRequestedInUpdate) {
+                layoutRequestedInUpdate = false;
+                requestLayout();
+            }
+            invalidate();
+        }
+    }
+
+    /**
+     * 绑定线程安全的角标数据, 其他线程写入 {@link MenuBadgeStore} 后会在下一帧同步到菜单.
+     * 菜单从窗口移除期间解除绑定(不持有菜单), 重新添加后全量同步; 同一个 store 后绑定的菜单生效
+     */
+    public void setBadgeStore(MenuBadgeStore badgeStore) {
+        if (this.badgeStore != null) {
+            this.badgeStore.detach(this);
+        }
+        this.badgeStore = badgeStore;
+        if (badgeStore != null && !windowDetached) {
+            badgeStore.attach(this);
+        }
+    }
+
+    public MenuBadgeStore getBadgeStore() {
+        return badgeStore;
+    }
+
+    @Override
+    public void requestLayout() {
+        if (inUpdate) {
+            // 批量更新期间子 View 的 requestLayout 合并为一次
+            layoutRequestedInUpdate = true;
+            return;
+        }
+        if (onMetricsListener != null && !isLayoutRequested()) {
+            onMetricsListener.onLayoutRequested(++layoutRequestCount);
+        }
+        super.requestLayout();
+    }
+
+    public int getItemCount() {
+        return menuState.getItemCount();
+    }
+
+    String getItemKey(int position) {
+        return menuState.getKey(position);
+    }
+
+    public int getCurrentPosition() {
+        return menuState.getSelectedPosition();
+    }
+
+    public void setSmoothScroll(boolean smoothScroll) {
+        this.smoothScroll = smoothScroll;
+    }
+
+    public MenuItemView getMenuItem(int position) {
+        restoreReleasedItems();
+        return menuItemViewList.get(position);
+    }
+
+    /**
+     * 保存状态时是否保留 item(需开启 {@link MenuItemViewPool}), 重建页面后配置未变化时直接取回已创建的 item, 不再重新 inflate.
+     * 只有配置完全一致时才取回: 屏幕旋转、切换夜间模式等配置变化后保留的 item 已过期, 不会重新添加,
+     * 仍按保存的设置重新创建(直接设置了 Drawable 的 item 无法保存, 不会恢复)
+     */
+    public void setRetainItemViews(boolean retainItemViews) {
+        this.retainItemViews = retainItemViews;
+    }
+
+    /**
+     * 当 View 被销毁的时候, 保存数据: 选中、每个 item 的角标及运行时添加的 item 的设置
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        Bundle bundle = new Bundle();
+        bundle.putParcelable(BUNDLE_INSTANCE, super.onSaveInstanceState());
+        bundle.putInt(BUNDLE_CURRENT_POSITION, menuState.getSelectedPosition());
+
+        int itemCount = menuState.getItemCount();
+        String[] keys = new String[itemCount];
+        int[] badgeKinds = new int[itemCount];
+        int[] unreadNums = new int[itemCount];
+        String[] msgs = new String[itemCount];
+        ArrayList<Bundle> itemStates = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            keys[i] = menuState.getKey(i);
+            badgeKinds[i] = menuState.getBadgeKind(i);
+            unreadNums[i] = menuState.getUnreadNum(i);
+            msgs[i] = menuState.getMsg(i);
+            // item 已放回复用池时使用放回时的 builder
+            MenuItemBuilder builder = releasedBuilders != null ? releasedBuilders.get(i) : menuItemViewList.get(i).getBuilder();
+            itemStates.add(builder == null ? null : builder.saveState());
+        }
+        bundle.putStringArray(BUNDLE_ITEM_KEYS, keys);
+        bundle.putIntArray(BUNDLE_BADGE_KINDS, badgeKinds);
+        bundle.putIntArray(BUNDLE_UNREAD_NUMS, unreadNums);
+        bundle.putStringArray(BUNDLE_MSGS, msgs);
+        bundle.putParcelableArrayList(BUNDLE_ITEM_STATES, itemStates);
+
+        if (retainItemViews && releasedBuilders == null && MenuItemViewPool.isEnabled()) {
+            if (retainToken == null) {
+                retainToken = UUID.randomUUID().toString();
+            }
+            MenuItemViewPool.retain(retainToken, menuItemViewList);
+            bundle.putString(BUNDLE_RETAIN_TOKEN, retainToken);
+        }
+        return bundle;
+    }
+
+    /**
+     * 恢复数据
+     */
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof Bundle) {
+            Bundle bundle = (Bundle) state;
+            restoreState(bundle);
+            super.onRestoreInstanceState(bundle.getParcelable(BUNDLE_INSTANCE));
+        } else {
+            super.onRestoreInstanceState(state);
+        }
+    }
+
+    private void restoreState(Bundle bundle) {
+        String[] keys = bundle.getStringArray(BUNDLE_ITEM_KEYS);
+        if (keys == null) {
+            return;
+        }
+        restoreReleasedItems();
+        List<String> savedKeys = Arrays.asList(keys);
+        // 绑定 ViewPager 时 item 个数由 adapter 决定, 只恢复选中及角标
+        if (bind != Bind.VIEW_PAGE_1 && bind != Bind.VIEW_PAGE_2) {
+            String token = bundle.getString(BUNDLE_RETAIN_TOKEN);
+            restoreItems(savedKeys, bundle.<Bundle>getParcelableArrayList(BUNDLE_ITEM_STATES),
+                    token == null ? null : MenuItemViewPool.takeRetained(token));
+        }
+
+        // 按 key 将选中及角标恢复到对应的 item
+        int selectedPosition = bundle.getInt(BUNDLE_CURRENT_POSITION);
+        int[] badgeKinds = bundle.getIntArray(BUNDLE_BADGE_KINDS);
+        int[] unreadNums = bundle.getIntArray(BUNDLE_UNREAD_NUMS);
+        String[] msgs = bundle.getStringArray(BUNDLE_MSGS);
+        int[] match = MenuItemDiff.match(savedKeys, getItemKeys());
+        MenuChange.Builder builder = new MenuChange.Builder();
+        for (int i = 0; i < match.length; i++) {
+            int savedPosition = match[i];
+            if (savedPosition == MenuItemDiff.NO_MATCH) {
+                continue;
+            }
+            if (savedPosition == selectedPosition) {
+                builder.select(MenuState.NO_POSITION, i);
+            }
+            builder.badge(i, badgeKinds[savedPosition], unreadNums[savedPosition], msgs[savedPosition]);
+        }
+        applyChange(builder.build());
+    }
+
+    /**
+     * 重新添加运行时添加的 item 并按保存时的顺序排列, 当前已有的 item(如布局中声明的)直接复用,
+     * 保存时不存在的 item 排在最后
+     */
+    private void restoreItems(List<String> savedKeys, List<Bundle> itemStates, List<MenuItemView> retained) {
+        List<String> currentKeys = getItemKeys();
+        if (currentKeys.equals(savedKeys)) {
+            return;
+        }
+        int[] match = MenuItemDiff.match(currentKeys, savedKeys);
+        boolean[] kept = new boolean[currentKeys.size()];
+        List<MenuItemBuilder> builders = new ArrayList<>(savedKeys.size());
+        for (int i = 0; i < savedKeys.size(); i++) {
+            if (match[i] != MenuItemDiff.NO_MATCH) {
+                kept[match[i]] = true;
+                builders.add(menuItemViewList.get(match[i]).getBuilder());
+            } else if (itemStates != null && itemStates.get(i) != null) {
+                builders.add(MenuItemBuilder.restoreState(getContext(), itemStates.get(i)));
+            }
+        }
+        for (int i = 0; i < kept.length; i++) {
+            if (!kept[i]) {
+                builders.add(menuItemViewList.get(i).getBuilder());
+            }
+        }
+
+        retainedItems = retained;
+        try {
+            updateItems(builders);
+        } finally {
+            retainedItems = null;
+        }
+    }
+
+    private List<String> getItemKeys() {
+        List<String> keys = new ArrayList<>(menuItemViewList.size());
+        for (MenuItemView item : menuItemViewList) {
+            keys.add(item.getKey());
+        }
+        return keys;
+    }
+
+    public void setOnMenuItemSelectedListener(OnMenuItemSelectedListener onMenuItemSelectedListener) {
+        this.onMenuItemSelectedListener = onMenuItemSelectedListener;
+    }
+
+    /**
+     * 设置重复选中监听, 设置后点击当前选中的 item 只回调该监听, 不再回调 {@link OnMenuItemSelectedListener}
+     */
+    public void setOnMenuItemReselectedListener(OnMenuItemReselectedListener onMenuItemReselectedListener) {
+        this.onMenuItemReselectedListener = onMenuItemReselectedListener;
+    }
+
+    /**
+     * 设置按下监听, 按下 item 到点击通常有上百毫秒, 可在按下时提前加载目标页面的数据
+     */
+    public void setOnMenuItemPressListener(OnMenuItemPressListener onMenuItemPressListener) {
+        this.onMenuItemPressListener = onMenuItemPressListener;
+    }
+
+    /**
+     * 按下 item 时是否让绑定的 ViewPager/ViewPager2 提前创建目标页面.
+     * ViewPager2 只创建目标页面并放入复用池; ViewPager 临时增大 offscreenPageLimit(抬起或取消后恢复), 中间的页面也会创建
+     */
+    public void setPrefetchOnPress(boolean prefetchOnPress) {
+        this.prefetchOnPress = prefetchOnPress;
+        if (!prefetchOnPress) {
+            restoreOffscreenPageLimit();
+        }
+    }
+
+    /**
+     * 设置性能统计监听, 为 null 时关闭统计. 菜单从窗口移除期间暂停计时, 重新添加后恢复.
+     * 只统计设置监听之后通过代码创建的 item, 布局中声明的 item 在设置监听前已创建, 不上报创建耗时
+     */
+    public void setMetricsListener(OnMetricsListener onMetricsListener) {
+        this.onMetricsListener = onMetricsListener;
+        updateMetricsCounted();
+        clickTimeNanos = 0;
+        badgeUpdateCount = 0;
+        layoutRequestCount = 0;
+    }
+
+    /**
+     * 设置了统计监听且未从窗口移除时计入统计开关
+     */
+    private void updateMetricsCounted() {
+        boolean counted = onMetricsListener != null && !windowDetached;
+        if (metricsCounted != counted) {
+            metricsCounted = counted;
+            MenuMetrics.onMenuChanged(counted);
+        }
+    }
+
+    public interface OnItemsAddedListener {
+
+        /**
+         * 异步创建的 item 已添加到菜单, 主线程
+         *
+         * @param menuItemViews 新增的 item
+         */
+        void onItemsAdded(List<MenuItemView> menuItemViews);
+    }
+
+    public interface OnBatchUpdateListener {
+
+        /**
+         * 批量更新
+         *
+         * @param editor 通过 editor 修改 item 状态, 回调结束后统一提交
+         */
+        void onBatchUpdate(MenuItemEditor editor);
+    }
+
+    public interface OnMetricsListener {
+
+        /**
+         * item 创建完成并加入菜单, 主线程. 布局中声明的 item 及开启统计前创建的 item 没有计时, 不回调
+         *
+         * @param menuItemView  item view
+         * @param durationNanos  创建(initView)耗时
+         */
+        void onItemInflated(MenuItemView menuItemView, long durationNanos);
+
+        /**
+         * 点击 item 到回调 {@link OnMenuItemSelectedListener#onItemSelected} 的耗时
+         *
+         * @param position      选中的位置
+         * @param durationNanos 耗时
+         */
+        void onClickToSelected(int position, long durationNanos);
+
+        /**
+         * 角标更新频率, 有更新时每秒最多上报一次
+         *
+         * @param updatesPerSecond 每秒更新次数
+         */
+        void onBadgeUpdateRate(float updatesPerSecond);
+
+        /**
+         * 菜单触发 requestLayout(批量更新期间合并为一次, 已请求 layout 时不重复计数)
+         *
+         * @param count 设置监听后的累计次数
+         */
+        void onLayoutRequested(int count);
+    }
+
+    public interface OnMenuItemReselectedListener {
+
+        /**
+         * 点击当前选中的 item
+         *
+         * @param menuItemView item view
+         * @param position     位置
+         */
+        void onItemReselected(MenuItemView menuItemView, int position);
+    }
+
+    public interface OnMenuItemPressListener {
+
+        /**
+         * 按下 item(点击之前)
+         *
+         * @param menuItemView item view
+         * @param position     按下的位置
+         */
+        void onItemPressed(MenuItemView menuItemView, int position);
+
+        /**
+         * 按下后移出 item 或触摸被取消, 不会再产生点击, 应取消提前开始的加载
+         *
+         * @param menuItemView item view
+         * @param position     按下的位置
+         */
+        void onItemPressCanceled(MenuItemView menuItemView, int position);
     }
 
     public interface OnMenuItemSelectedListener {
@@ -362,5 +1784,10 @@ public class BottomMenuLayout extends LinearLayout {
          * 绑定ViewPage2
          */
         VIEW_PAGE_2,
+
+        /**
+         * 绑定Fragment
+         */
+        FRAGMENT,
     }
 }
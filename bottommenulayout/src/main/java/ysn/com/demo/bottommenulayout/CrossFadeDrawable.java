@@ -0,0 +1,155 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+/**
+ * @Author yangsanning
+ * @ClassName CrossFadeDrawable
+ * @Description 默认图标与选中图标的渐变 Drawable, 切换选中或滑动过渡时只修改透明度, 不替换 Drawable.
+ * 不修改两个图标自身的透明度(不 mutate), 图标继续共用 {@link MenuDrawableCache} 中的 ConstantState, 过渡中通过图层透明度绘制
+ * @Date 2020/6/15
+ */
+class CrossFadeDrawable extends Drawable implements Drawable.Callback {
+
+    private Drawable normalDrawable;
+    private Drawable selectedDrawable;
+    private boolean mutated;
+
+    /**
+     * fraction: 选中程度, 0 为默认图标, 1 为选中图标
+     */
+    private float fraction;
+    private int alpha = 255;
+
+    CrossFadeDrawable(Drawable normalDrawable, Drawable selectedDrawable) {
+        this.normalDrawable = normalDrawable;
+        this.selectedDrawable = selectedDrawable;
+        this.normalDrawable.setCallback(this);
+        this.selectedDrawable.setCallback(this);
+    }
+
+    Drawable getNormalDrawable() {
+        return normalDrawable;
+    }
+
+    Drawable getSelectedDrawable() {
+        return selectedDrawable;
+    }
+
+    float getFraction() {
+        return fraction;
+    }
+
+    void setFraction(float fraction) {
+        if (this.fraction != fraction) {
+            this.fraction = fraction;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (fraction < 1f) {
+            drawWithAlpha(canvas, normalDrawable, (int) (alpha * (1f - fraction)));
+        }
+        if (fraction > 0f) {
+            drawWithAlpha(canvas, selectedDrawable, (int) (alpha * fraction));
+        }
+    }
+
+    /**
+     * 完全不透明时直接绘制, 否则在图层上以指定透明度绘制
+     */
+    @SuppressWarnings("deprecation")
+    private void drawWithAlpha(Canvas canvas, Drawable drawable, int alpha) {
+        if (alpha >= 255) {
+            drawable.draw(canvas);
+            return;
+        }
+        if (alpha <= 0) {
+            return;
+        }
+        Rect bounds = getBounds();
+        int count;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            count = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha);
+        } else {
+            count = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha, Canvas.ALL_SAVE_FLAG);
+        }
+        drawable.draw(canvas);
+        canvas.restoreToCount(count);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        normalDrawable.setBounds(bounds);
+        selectedDrawable.setBounds(bounds);
+    }
+
+    @Override
+    protected boolean onStateChange(int[] state) {
+        boolean changed = normalDrawable.setState(state);
+        changed |= selectedDrawable.setState(state);
+        return changed;
+    }
+
+    @Override
+    public boolean isStateful() {
+        return normalDrawable.isStateful() || selectedDrawable.isStateful();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return Math.max(normalDrawable.getIntrinsicWidth(), selectedDrawable.getIntrinsicWidth());
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return Math.max(normalDrawable.getIntrinsicHeight(), selectedDrawable.getIntrinsicHeight());
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        // 颜色过滤会修改共用的 ConstantState, 仅此时与其他使用同一资源的 Drawable 分离
+        if (!mutated && colorFilter != null) {
+            mutated = true;
+            normalDrawable = normalDrawable.mutate();
+            selectedDrawable = selectedDrawable.mutate();
+        }
+        normalDrawable.setColorFilter(colorFilter);
+        selectedDrawable.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    @Override
+    public void invalidateDrawable(Drawable who) {
+        invalidateSelf();
+    }
+
+    @Override
+    public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        scheduleSelf(what, when);
+    }
+
+    @Override
+    public void unscheduleDrawable(Drawable who, Runnable what) {
+        unscheduleSelf(what);
+    }
+}
@@ -0,0 +1,314 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.text.TextPaint;
+
+/**
+ * @Author yangsanning
+ * @ClassName FlatMenuItemRenderer
+ * @Description 扁平化模式下 MenuItemView 的绘制器, 图标、文本、未读数、提示消息及小红点直接绘制在 Canvas 上
+ * @Date 2020/6/6
+ */
+class FlatMenuItemRenderer {
+
+    /**
+     * 与 view_menu_item.xml 保持一致的尺寸(dp)
+     * UNREAD_MARGIN_START: 未读数、提示消息相对图标中心的偏移
+     * POINT_MARGIN_START: 小红点相对图标中心的偏移
+     * POINT_SIZE: 小红点大小
+     * UNREAD_MIN_WIDTH: 未读数最小宽度
+     */
+    private static final int UNREAD_MARGIN_START = 14;
+    private static final int POINT_MARGIN_START = 10;
+    private static final int POINT_SIZE = 10;
+    private static final int UNREAD_MIN_WIDTH = 15;
+
+    private final MenuItemView view;
+    private final MenuItemBuilder builder;
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint badgePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt textFontMetrics = new Paint.FontMetricsInt();
+    private final Paint.FontMetricsInt badgeFontMetrics = new Paint.FontMetricsInt();
+    private final Rect paddingRect = new Rect();
+
+    private final int unreadMarginStart;
+    private final int pointMarginStart;
+    private final int pointSize;
+    private final int unreadMinWidth;
+
+    /**
+     * textWidth: 文本宽度缓存
+     * textHeight: 文本高度缓存
+     */
+    private float textWidth;
+    private int textHeight;
+
+    /**
+     * iconRect: 图标绘制区域
+     * textX、textBaseline: 文本绘制位置
+     */
+    private final Rect iconRect = new Rect();
+    private float textX;
+    private float textBaseline;
+
+    /**
+     * badgeType: 当前显示的角标类型, 未读、消息、小红点仅能显示一个
+     * badgeText: 角标文本
+     * badgeRect: 角标区域
+     */
+    private int badgeType = MenuState.BADGE_NONE;
+    private String badgeText;
+    private float badgeTextWidth;
+    private final Rect badgeRect = new Rect();
+
+    private boolean selected;
+
+    FlatMenuItemRenderer(MenuItemView view, MenuItemBuilder builder) {
+        this.view = view;
+        this.builder = builder;
+        float density = view.getResources().getDisplayMetrics().density;
+        unreadMarginStart = (int) (UNREAD_MARGIN_START * density + 0.5f);
+        pointMarginStart = (int) (POINT_MARGIN_START * density + 0.5f);
+        pointSize = (int) (POINT_SIZE * density + 0.5f);
+        unreadMinWidth = (int) (UNREAD_MIN_WIDTH * density + 0.5f);
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        badgePaint.setTextAlign(Paint.Align.CENTER);
+        refreshText();
+        setIconCallback(view);
+    }
+
+    /**
+     * 文本或字体变化时重新缓存文本宽高
+     */
+    void refreshText() {
+        textPaint.setTextSize(builder.textSize);
+        textPaint.getFontMetricsInt(textFontMetrics);
+        textHeight = textFontMetrics.bottom - textFontMetrics.top;
+        MenuLabelPrecomputer.Result precomputed = MenuLabelPrecomputer.getIfDone(builder.precomputedLabel);
+        if (builder.text == null) {
+            textWidth = 0;
+        } else if (precomputed != null) {
+            textWidth = precomputed.width;
+        } else {
+            textWidth = textPaint.measureText(builder.text);
+        }
+        textPaint.setColor(selected ? builder.textSelectedColor : builder.textNormalColor);
+    }
+
+    void setIconCallback(Drawable.Callback callback) {
+        Drawable icon = view.getDisplayIcon();
+        if (icon != null) {
+            icon.setCallback(callback);
+        }
+    }
+
+    boolean verifyDrawable(Drawable who) {
+        return who == view.getDisplayIcon();
+    }
+
+    /**
+     * @return 绘制内容是否有变化
+     */
+    boolean setSelected(boolean selected) {
+        int textColor = selected ? builder.textSelectedColor : builder.textNormalColor;
+        if (this.selected == selected && textPaint.getColor() == textColor) {
+            return false;
+        }
+        this.selected = selected;
+        textPaint.setColor(textColor);
+        return true;
+    }
+
+    /**
+     * 滑动过渡时直接设置文本颜色
+     */
+    void setTextColor(int textColor) {
+        if (textPaint.getColor() != textColor) {
+            textPaint.setColor(textColor);
+            view.invalidate();
+        }
+    }
+
+    int getIconWidth() {
+        if (builder.iconWidth != 0 && builder.iconHeight != 0) {
+            return builder.iconWidth;
+        }
+        return getSizeIcon().getIntrinsicWidth();
+    }
+
+    int getIconHeight() {
+        if (builder.iconWidth != 0 && builder.iconHeight != 0) {
+            return builder.iconHeight;
+        }
+        return getSizeIcon().getIntrinsicHeight();
+    }
+
+    /**
+     * 按默认图标的尺寸测量, 默认图标在内存不足时被释放(当前选中)时使用选中图标
+     */
+    private Drawable getSizeIcon() {
+        return builder.normalIcon != null ? builder.normalIcon : builder.selectedIcon;
+    }
+
+    /**
+     * 内容宽度(不含 MenuItemView 自身 padding)
+     */
+    int getContentWidth() {
+        return Math.max(getIconWidth(), (int) Math.ceil(textWidth)) + builder.itemPadding * 2;
+    }
+
+    /**
+     * 内容高度(不含 MenuItemView 自身 padding)
+     */
+    int getContentHeight() {
+        return getIconHeight() + builder.marginTop + textHeight + builder.itemPadding * 2;
+    }
+
+    /**
+     * 根据 View 尺寸计算各部分位置
+     */
+    void layout(int width, int height) {
+        int left = view.getPaddingLeft();
+        int top = view.getPaddingTop();
+        int availableWidth = width - left - view.getPaddingRight();
+        int availableHeight = height - top - view.getPaddingBottom();
+
+        int iconWidth = getIconWidth();
+        int iconHeight = getIconHeight();
+        int centerX = left + availableWidth / 2;
+        int contentTop = top + (availableHeight - getContentHeight()) / 2 + builder.itemPadding;
+
+        iconRect.set(centerX - iconWidth / 2, contentTop, centerX - iconWidth / 2 + iconWidth, contentTop + iconHeight);
+        textX = centerX;
+        textBaseline = iconRect.bottom + builder.marginTop - textFontMetrics.top;
+        layoutBadge();
+    }
+
+    /**
+     * 显示未读数
+     */
+    void showUnread(String text) {
+        setBadge(MenuState.BADGE_UNREAD, text, builder.unreadTextSize, builder.unreadTextColor);
+    }
+
+    /**
+     * 显示提示消息
+     */
+    void showMsg(String msg) {
+        setBadge(MenuState.BADGE_MSG, msg, builder.msgTextSize, builder.msgTextColor);
+    }
+
+    /**
+     * 显示小红点
+     */
+    void showMsgPoint() {
+        setBadge(MenuState.BADGE_POINT, null, 0, 0);
+    }
+
+    /**
+     * 隐藏指定类型的角标
+     */
+    void hideBadge(int type) {
+        if (badgeType == type) {
+            badgeType = MenuState.BADGE_NONE;
+            badgeText = null;
+            view.invalidate();
+        }
+    }
+
+    /**
+     * 隐藏所有角标
+     */
+    void hideAllBadge() {
+        if (badgeType != MenuState.BADGE_NONE) {
+            hideBadge(badgeType);
+        }
+    }
+
+    private void setBadge(int type, String text, int textSize, int textColor) {
+        badgeType = type;
+        badgeText = text;
+        if (type != MenuState.BADGE_POINT) {
+            badgePaint.setTextSize(textSize);
+            badgePaint.setColor(textColor);
+            badgePaint.getFontMetricsInt(badgeFontMetrics);
+            badgeTextWidth = text == null ? 0 : badgePaint.measureText(text);
+        }
+        layoutBadge();
+        view.invalidate();
+    }
+
+    private void layoutBadge() {
+        int centerX = iconRect.centerX();
+        int top = iconRect.top;
+        switch (badgeType) {
+            case MenuState.BADGE_UNREAD:
+            case MenuState.BADGE_MSG:
+                Drawable background = badgeType == MenuState.BADGE_UNREAD ? builder.getUnreadTextBg() : builder.getMsgTextBg();
+                if (background == null || !background.getPadding(paddingRect)) {
+                    paddingRect.setEmpty();
+                }
+                int width = (int) Math.ceil(badgeTextWidth) + paddingRect.left + paddingRect.right;
+                if (badgeType == MenuState.BADGE_UNREAD) {
+                    width = Math.max(width, unreadMinWidth);
+                }
+                int height = badgeFontMetrics.bottom - badgeFontMetrics.top + paddingRect.top + paddingRect.bottom;
+                int badgeCenterX = centerX + unreadMarginStart;
+                badgeRect.set(badgeCenterX - width / 2, top, badgeCenterX - width / 2 + width, top + height);
+                break;
+            case MenuState.BADGE_POINT:
+                int pointCenterX = centerX + pointMarginStart;
+                badgeRect.set(pointCenterX - pointSize / 2, top, pointCenterX - pointSize / 2 + pointSize, top + pointSize);
+                break;
+            default:
+                badgeRect.setEmpty();
+                break;
+        }
+    }
+
+    void draw(Canvas canvas) {
+        Drawable icon = view.getDisplayIcon();
+        if (icon != null) {
+            icon.setBounds(iconRect);
+            icon.draw(canvas);
+        }
+
+        if (builder.text != null) {
+            canvas.drawText(builder.text, textX, textBaseline, textPaint);
+        }
+
+        switch (badgeType) {
+            case MenuState.BADGE_UNREAD:
+                drawTextBadge(canvas, builder.getUnreadTextBg());
+                break;
+            case MenuState.BADGE_MSG:
+                drawTextBadge(canvas, builder.getMsgTextBg());
+                break;
+            case MenuState.BADGE_POINT:
+                Drawable pointBackground = builder.getMsgPointBg();
+                if (pointBackground != null) {
+                    pointBackground.setBounds(badgeRect);
+                    pointBackground.draw(canvas);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void drawTextBadge(Canvas canvas, Drawable background) {
+        if (background != null) {
+            background.setBounds(badgeRect);
+            background.draw(canvas);
+        }
+        if (badgeText != null) {
+            float baseline = badgeRect.exactCenterY() - (badgeFontMetrics.ascent + badgeFontMetrics.descent) / 2f;
+            canvas.drawText(badgeText, badgeRect.exactCenterX(), baseline, badgePaint);
+        }
+    }
+}
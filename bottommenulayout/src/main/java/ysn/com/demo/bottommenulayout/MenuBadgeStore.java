@@ -0,0 +1,292 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.tracing.Trace;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuBadgeStore
+ * @Description 线程安全的角标数据, 任意线程均可直接写入, 变化会在下一帧通过 {@link MenuItemEditor} 一次性同步到
+ * {@link BottomMenuLayout}, 每帧最多同步一次, 无变化不同步. 只在菜单显示在窗口上时引用菜单, 可长期持有(如推送、数据库线程写入)
+ * @Date 2020/6/9
+ */
+public class MenuBadgeStore {
+
+    /**
+     * 每个位置的角标类型、未读数、提示消息保存在同一个不可变的 {@link Badge} 中, 整体替换, 读取时不会看到一半的修改
+     */
+    private final AtomicReferenceArray<Badge> badges;
+    private final AtomicIntegerArray dirtyFlags;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * 首次从其他线程安排同步时创建
+     */
+    private volatile Handler mainHandler;
+
+    /**
+     * 仅在主线程写入, 未绑定菜单或菜单已从窗口移除时只记录变化, 不安排同步, 也不再引用菜单
+     */
+    private volatile BottomMenuLayout menuLayout;
+
+    private final Runnable scheduleFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            Trace.beginSection(MenuMetrics.TRACE_BADGE_FLUSH);
+            try {
+                flush();
+            } finally {
+                Trace.endSection();
+            }
+        }
+    };
+
+    /**
+     * @param capacity 最大 item 个数
+     */
+    public MenuBadgeStore(int capacity) {
+        badges = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            badges.set(i, Badge.NONE);
+        }
+        dirtyFlags = new AtomicIntegerArray(capacity);
+    }
+
+    public int capacity() {
+        return badges.length();
+    }
+
+    /**
+     * 设置未读数, 任意线程可调用
+     */
+    public void setUnreadNum(int position, int unreadNum) {
+        if (unreadNum <= 0) {
+            setBadge(position, Badge.NONE);
+        } else {
+            setBadge(position, new Badge(MenuState.BADGE_UNREAD, unreadNum, null));
+        }
+    }
+
+    /**
+     * 显示提示消息, 任意线程可调用
+     */
+    public void visibleMsg(int position, String msg) {
+        setBadge(position, new Badge(MenuState.BADGE_MSG, 0, msg));
+    }
+
+    /**
+     * 隐藏提示消息, 任意线程可调用
+     */
+    public void goneMsg(int position) {
+        gone(position, MenuState.BADGE_MSG);
+    }
+
+    /**
+     * 显示小红点, 任意线程可调用
+     */
+    public void visibleMsgPoint(int position) {
+        setBadge(position, new Badge(MenuState.BADGE_POINT, 0, null));
+    }
+
+    /**
+     * 隐藏小红点, 任意线程可调用
+     */
+    public void goneMsgPoint(int position) {
+        gone(position, MenuState.BADGE_POINT);
+    }
+
+    /**
+     * 获取未读数, 未显示未读数时返回 0
+     */
+    public int getUnreadNum(int position) {
+        return badges.get(position).unreadNum;
+    }
+
+    /**
+     * 获取角标类型, {@link MenuState#BADGE_NONE} 等
+     */
+    public int getBadgeKind(int position) {
+        return badges.get(position).kind;
+    }
+
+    /**
+     * 获取提示消息, 未显示提示消息时返回 null
+     */
+    public String getMsg(int position) {
+        return badges.get(position).msg;
+    }
+
+    /**
+     * 读取位置的角标, 类型、未读数、提示消息来自同一次写入
+     */
+    Badge getBadge(int position) {
+        return badges.get(position);
+    }
+
+    private void setBadge(int position, Badge badge) {
+        if (!badge.equals(badges.getAndSet(position, badge))) {
+            markDirty(position);
+        }
+    }
+
+    /**
+     * 仅在当前为指定类型时隐藏, 与其他线程的写入竞争时通过 CAS 重试
+     */
+    private void gone(int position, int kind) {
+        while (true) {
+            Badge badge = badges.get(position);
+            if (badge.kind != kind) {
+                return;
+            }
+            if (badges.compareAndSet(position, badge, Badge.NONE)) {
+                markDirty(position);
+                return;
+            }
+        }
+    }
+
+    private void markDirty(int position) {
+        dirtyFlags.set(position, 1);
+        if (menuLayout != null && flushScheduled.compareAndSet(false, true)) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 在下一帧同步, 只在绑定了菜单时调用
+     */
+    private void scheduleFlush() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFrameRunnable.run();
+            return;
+        }
+        Handler handler = mainHandler;
+        if (handler == null) {
+            // 并发时可能重复创建, 都指向主线程, 不影响结果
+            handler = new Handler(Looper.getMainLooper());
+            mainHandler = handler;
+        }
+        handler.post(scheduleFrameRunnable);
+    }
+
+    /**
+     * 绑定菜单并全量同步一次, 由 {@link BottomMenuLayout#setBadgeStore(MenuBadgeStore)} 及菜单添加到窗口时调用, 主线程
+     */
+    void attach(BottomMenuLayout menuLayout) {
+        this.menuLayout = menuLayout;
+        for (int i = 0; i < dirtyFlags.length(); i++) {
+            markDirty(i);
+        }
+    }
+
+    /**
+     * 解除与指定菜单的绑定, 已绑定到其他菜单时不处理, 主线程
+     */
+    void detach(BottomMenuLayout menuLayout) {
+        if (this.menuLayout == menuLayout) {
+            this.menuLayout = null;
+        }
+    }
+
+    /**
+     * 当前绑定的菜单, 主线程
+     */
+    BottomMenuLayout getMenuLayout() {
+        return menuLayout;
+    }
+
+    /**
+     * 取出并清除位置的变化标记, 由 flush 调用
+     */
+    boolean takeDirty(int position) {
+        return dirtyFlags.getAndSet(position, 0) != 0;
+    }
+
+    /**
+     * 将变化同步到菜单, 主线程调用
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        if (menuLayout == null) {
+            return;
+        }
+        MenuItemEditor editor = null;
+        int itemCount = Math.min(menuLayout.getItemCount(), dirtyFlags.length());
+        for (int i = 0; i < itemCount; i++) {
+            if (!takeDirty(i)) {
+                continue;
+            }
+            if (editor == null) {
+                editor = menuLayout.beginUpdate();
+            }
+            // 先清除标记再读取, 读取之后的写入会重新标记, 在下一帧同步
+            Badge badge = badges.get(i);
+            switch (badge.kind) {
+                case MenuState.BADGE_UNREAD:
+                    editor.setUnreadNum(i, badge.unreadNum);
+                    break;
+                case MenuState.BADGE_MSG:
+                    editor.visibleMsg(i, badge.msg);
+                    break;
+                case MenuState.BADGE_POINT:
+                    editor.visibleMsgPoint(i);
+                    break;
+                default:
+                    editor.setUnreadNum(i, 0);
+                    break;
+            }
+        }
+        if (editor != null) {
+            editor.commit();
+        }
+    }
+
+    /**
+     * 一个位置的角标, 不可变
+     */
+    static final class Badge {
+
+        static final Badge NONE = new Badge(MenuState.BADGE_NONE, 0, null);
+
+        final int kind;
+        final int unreadNum;
+        final String msg;
+
+        Badge(int kind, int unreadNum, String msg) {
+            this.kind = kind;
+            this.unreadNum = unreadNum;
+            this.msg = msg;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Badge)) {
+                return false;
+            }
+            Badge badge = (Badge) o;
+            return kind == badge.kind && unreadNum == badge.unreadNum && (msg == null ? badge.msg == null : msg.equals(badge.msg));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * kind + unreadNum) + (msg != null ? msg.hashCode() : 0);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ysn.com.demo.bottommenulayout;
+
+import java.util.Arrays;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuChange
+ * @Description {@link MenuState} 一次状态转换产生的最小变更集合, 只包含需要重新渲染的选中状态及角标,
+ * 值均为变更后的结果, 不依赖 Android, 创建后不可修改
+ * @Date 2020/6/19
+ */
+public final class MenuChange {
+
+    static final MenuChange EMPTY = new Builder().build();
+
+    private final int deselectedPosition;
+    private final int selectedPosition;
+    private final int badgeCount;
+    private final int[] badgePositions;
+    private final int[] badgeKinds;
+    private final int[] unreadNums;
+    private final String[] msgs;
+
+    private MenuChange(Builder builder) {
+        this.deselectedPosition = builder.deselectedPosition;
+        this.selectedPosition = builder.selectedPosition;
+        this.badgeCount = builder.badgeCount;
+        this.badgePositions = Arrays.copyOf(builder.badgePositions, badgeCount);
+        this.badgeKinds = Arrays.copyOf(builder.badgeKinds, badgeCount);
+        this.unreadNums = Arrays.copyOf(builder.unreadNums, badgeCount);
+        this.msgs = Arrays.copyOf(builder.msgs, badgeCount);
+    }
+
+    public boolean isEmpty() {
+        return !isSelectionChanged() && badgeCount == 0;
+    }
+
+    public boolean isSelectionChanged() {
+        return selectedPosition != MenuState.NO_POSITION;
+    }
+
+    /**
+     * 需要取消选中的位置, 无则为 {@link MenuState#NO_POSITION}
+     */
+    public int getDeselectedPosition() {
+        return deselectedPosition;
+    }
+
+    /**
+     * 新的选中位置, 选中未变化时为 {@link MenuState#NO_POSITION}
+     */
+    public int getSelectedPosition() {
+        return selectedPosition;
+    }
+
+    /**
+     * 角标变化的个数
+     */
+    public int getBadgeChangeCount() {
+        return badgeCount;
+    }
+
+    public int getBadgePosition(int index) {
+        return badgePositions[index];
+    }
+
+    /**
+     * 变化后的角标类型, {@link MenuState#BADGE_NONE} 等
+     */
+    public int getBadgeKind(int index) {
+        return badgeKinds[index];
+    }
+
+    public int getUnreadNum(int index) {
+        return unreadNums[index];
+    }
+
+    public String getMsg(int index) {
+        return msgs[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("MenuChange{");
+        if (isSelectionChanged()) {
+            builder.append("selection: ").append(deselectedPosition).append(" -> ").append(selectedPosition);
+        }
+        for (int i = 0; i < badgeCount; i++) {
+            builder.append(i == 0 && !isSelectionChanged() ? "" : ", ")
+                    .append("badge[").append(badgePositions[i]).append("]: ")
+                    .append(badgeKinds[i]).append('/').append(unreadNums[i]).append('/').append(msgs[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+    static class Builder {
+
+        private int deselectedPosition = MenuState.NO_POSITION;
+        private int selectedPosition = MenuState.NO_POSITION;
+        private int badgeCount;
+        private int[] badgePositions = new int[0];
+        private int[] badgeKinds = new int[0];
+        private int[] unreadNums = new int[0];
+        private String[] msgs = new String[0];
+
+        Builder select(int deselectedPosition, int selectedPosition) {
+            this.deselectedPosition = deselectedPosition;
+            this.selectedPosition = selectedPosition;
+            return this;
+        }
+
+        Builder badge(int position, int kind, int unreadNum, String msg) {
+            if (badgeCount == badgePositions.length) {
+                int capacity = Math.max(4, badgeCount * 2);
+                badgePositions = Arrays.copyOf(badgePositions, capacity);
+                badgeKinds = Arrays.copyOf(badgeKinds, capacity);
+                unreadNums = Arrays.copyOf(unreadNums, capacity);
+                msgs = Arrays.copyOf(msgs, capacity);
+            }
+            badgePositions[badgeCount] = position;
+            badgeKinds[badgeCount] = kind;
+            unreadNums[badgeCount] = unreadNum;
+            msgs[badgeCount] = msg;
+            badgeCount++;
+            return this;
+        }
+
+        MenuChange build() {
+            return new MenuChange(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import androidx.core.content.res.ResourcesCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuDrawableCache
+ * @Description 进程内共享的 Drawable 缓存, 按资源 id、配置及主题特征值(见 {@link MenuThemeFingerprint})缓存
+ * {@link Drawable.ConstantState}, 主题属性相同的页面共用同一份,
+ * 返回的 Drawable 共用同一份 ConstantState, 需要修改着色等共享状态时请先调用 {@link Drawable#mutate()}
+ * @Date 2020/6/11
+ */
+public final class MenuDrawableCache {
+
+    /**
+     * 主题特征值 -> (资源 id + 配置 -> ConstantState)
+     */
+    private static final Map<Integer, Map<Long, Drawable.ConstantState>> CACHE = new HashMap<>();
+
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+    private static final AtomicLong MISS_COUNT = new AtomicLong();
+
+    private MenuDrawableCache() {
+    }
+
+    /**
+     * 获取 Drawable, 命中缓存时通过 ConstantState 创建新实例, 不再解析资源
+     */
+    public static Drawable getDrawable(Context context, int resId) {
+        Resources resources = context.getResources();
+        Resources.Theme theme = context.getTheme();
+        Long key = createKey(resources, resId);
+        Integer themeKey = MenuThemeFingerprint.of(theme);
+
+        Drawable.ConstantState constantState;
+        synchronized (CACHE) {
+            Map<Long, Drawable.ConstantState> themeCache = CACHE.get(themeKey);
+            constantState = themeCache == null ? null : themeCache.get(key);
+        }
+        if (constantState != null) {
+            HIT_COUNT.incrementAndGet();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                return constantState.newDrawable(resources, theme);
+            }
+            return constantState.newDrawable(resources);
+        }
+
+        MISS_COUNT.incrementAndGet();
+        Drawable drawable = ResourcesCompat.getDrawable(resources, resId, theme);
+        if (drawable != null && drawable.getConstantState() != null) {
+            synchronized (CACHE) {
+                Map<Long, Drawable.ConstantState> themeCache = CACHE.get(themeKey);
+                if (themeCache == null) {
+                    themeCache = new HashMap<>();
+                    CACHE.put(themeKey, themeCache);
+                }
+                themeCache.put(key, drawable.getConstantState());
+            }
+        }
+        return drawable;
+    }
+
+    /**
+     * 资源 id 与影响资源选择的配置(夜间模式、屏幕密度)组成 key
+     */
+    private static Long createKey(Resources resources, int resId) {
+        Configuration configuration = resources.getConfiguration();
+        int config = (configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK) << 16 | (configuration.densityDpi & 0xFFFF);
+        return ((long) resId << 32) | (config & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 命中次数
+     */
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    /**
+     * 未命中次数
+     */
+    public static long getMissCount() {
+        return MISS_COUNT.get();
+    }
+
+    /**
+     * 内存不足时释放缓存, 已创建的 Drawable 不受影响, 保留统计
+     */
+    static void trimMemory() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * 清空缓存及统计
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+        HIT_COUNT.set(0);
+        MISS_COUNT.set(0);
+    }
+}
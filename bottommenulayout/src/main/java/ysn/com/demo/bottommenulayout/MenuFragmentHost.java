@@ -0,0 +1,286 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuFragmentHost
+ * @Description 菜单绑定 Fragment, 见 {@link BottomMenuLayout#setFragmentHost(FragmentManager, int, FragmentCreator)}.
+ * 首次选中时创建 Fragment, 切换时 show/hide 并通过 setMaxLifecycle 将隐藏的 Fragment 限制在 STARTED(暂停, 不重建);
+ * 可在主线程空闲时预加载相邻的 Fragment; 内存不足时按最近使用移除隐藏的 Fragment, 最多保留 {@link #setMaxHiddenFragments(int)} 个
+ * @Date 2020/6/24
+ */
+public final class MenuFragmentHost {
+
+    private static final String TAG_PREFIX = "BottomMenuLayout:";
+
+    private final BottomMenuLayout menuLayout;
+    private final FragmentManager fragmentManager;
+    private final int containerId;
+    private final FragmentCreator fragmentCreator;
+
+    /**
+     * 已添加的 Fragment, 按最近使用排序
+     * currentFragment: 当前显示的 Fragment
+     */
+    private final LinkedHashMap<String, Fragment> fragments = new LinkedHashMap<>(16, 0.75f, true);
+    private Fragment currentFragment;
+
+    /**
+     * 保存状态后(无法提交事务)选中的位置, 下次可以提交事务时显示
+     */
+    private int pendingPosition = MenuState.NO_POSITION;
+
+    /**
+     * prefetch: 是否在主线程空闲时预加载相邻的 Fragment
+     * prefetchPosition: 预加载以该位置为中心
+     */
+    private boolean prefetch;
+    private int prefetchPosition;
+    private boolean prefetchScheduled;
+
+    /**
+     * 内存不足时最多保留的隐藏 Fragment 个数
+     */
+    private int maxHiddenFragments = 1;
+
+    private Context appContext;
+    private final MessageQueue.IdleHandler prefetchIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            // 每次空闲只预加载一个, 避免长时间占用主线程
+            prefetchScheduled = prefetchNext();
+            return prefetchScheduled;
+        }
+    };
+    private final ComponentCallbacks2 componentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            // 退到后台(UI_HIDDEN)不代表内存不足
+            if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+                trimHiddenFragments();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimHiddenFragments();
+        }
+    };
+
+    MenuFragmentHost(BottomMenuLayout menuLayout, FragmentManager fragmentManager, int containerId, FragmentCreator fragmentCreator) {
+        this.menuLayout = menuLayout;
+        this.fragmentManager = fragmentManager;
+        this.containerId = containerId;
+        this.fragmentCreator = fragmentCreator;
+        // 页面重建后由 FragmentManager 恢复的 Fragment
+        for (Fragment fragment : fragmentManager.getFragments()) {
+            String tag = fragment.getTag();
+            if (tag != null && tag.startsWith(TAG_PREFIX)) {
+                fragments.put(tag, fragment);
+            }
+        }
+    }
+
+    /**
+     * 是否在主线程空闲时预加载相邻的 Fragment(添加后隐藏, 最多到 STARTED)
+     */
+    public MenuFragmentHost setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+        if (!prefetch) {
+            cancelPrefetch();
+        }
+        return this;
+    }
+
+    /**
+     * 设置内存不足时最多保留的隐藏 Fragment 个数, 默认 1
+     */
+    public MenuFragmentHost setMaxHiddenFragments(int maxHiddenFragments) {
+        this.maxHiddenFragments = Math.max(0, maxHiddenFragments);
+        return this;
+    }
+
+    /**
+     * 显示指定位置的 Fragment, 未创建时创建, 其余已显示的 Fragment 隐藏并暂停
+     */
+    void show(int position) {
+        if (position < 0 || position >= menuLayout.getItemCount()) {
+            return;
+        }
+        if (!isUsable()) {
+            pendingPosition = position;
+            return;
+        }
+        pendingPosition = MenuState.NO_POSITION;
+        String tag = getTag(position);
+        Fragment fragment = fragments.get(tag);
+        if (fragment != null && fragment == currentFragment) {
+            return;
+        }
+
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        for (Fragment hosted : fragments.values()) {
+            if (hosted != fragment && (hosted == currentFragment || (currentFragment == null && !hosted.isHidden()))) {
+                transaction.hide(hosted).setMaxLifecycle(hosted, Lifecycle.State.STARTED);
+            }
+        }
+        if (fragment == null) {
+            fragment = fragmentCreator.createFragment(position);
+            transaction.add(containerId, fragment, tag);
+            fragments.put(tag, fragment);
+        } else {
+            transaction.show(fragment);
+        }
+        transaction.setMaxLifecycle(fragment, Lifecycle.State.RESUMED).commit();
+        currentFragment = fragment;
+
+        if (prefetch) {
+            prefetchPosition = position;
+            if (!prefetchScheduled) {
+                prefetchScheduled = true;
+                Looper.myQueue().addIdleHandler(prefetchIdleHandler);
+            }
+        }
+    }
+
+    /**
+     * 显示保存状态期间选中的 Fragment, 仍不能提交事务时继续等待
+     */
+    void showPending() {
+        if (pendingPosition != MenuState.NO_POSITION && isUsable()) {
+            show(pendingPosition);
+        }
+    }
+
+    /**
+     * 预加载 prefetchPosition 相邻的一个 Fragment
+     *
+     * @return 是否还需要继续预加载
+     */
+    private boolean prefetchNext() {
+        if (!prefetch || !isUsable()) {
+            return false;
+        }
+        int count = menuLayout.getItemCount();
+        int prefetched = 0;
+        for (int position = prefetchPosition - 1; position <= prefetchPosition + 1; position++) {
+            if (position < 0 || position >= count || position == prefetchPosition || fragments.containsKey(getTag(position))) {
+                continue;
+            }
+            if (prefetched == 1) {
+                return true;
+            }
+            String tag = getTag(position);
+            Fragment fragment = fragmentCreator.createFragment(position);
+            fragmentManager.beginTransaction()
+                    .setReorderingAllowed(true)
+                    .add(containerId, fragment, tag)
+                    .hide(fragment)
+                    .setMaxLifecycle(fragment, Lifecycle.State.STARTED)
+                    .commitNow();
+            fragments.put(tag, fragment);
+            prefetched++;
+        }
+        return false;
+    }
+
+    /**
+     * 按最近使用移除隐藏的 Fragment, 直到不超过 maxHiddenFragments
+     */
+    private void trimHiddenFragments() {
+        if (!isUsable()) {
+            return;
+        }
+        showPending();
+        int hiddenCount = fragments.size() - (currentFragment != null ? 1 : 0);
+        if (hiddenCount <= maxHiddenFragments) {
+            return;
+        }
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+        Iterator<Map.Entry<String, Fragment>> iterator = fragments.entrySet().iterator();
+        while (hiddenCount > maxHiddenFragments && iterator.hasNext()) {
+            Fragment fragment = iterator.next().getValue();
+            if (fragment == currentFragment) {
+                continue;
+            }
+            transaction.remove(fragment);
+            iterator.remove();
+            hiddenCount--;
+        }
+        transaction.commit();
+    }
+
+    /**
+     * 菜单添加到窗口时开始监听内存不足
+     */
+    void onAttached(Context context) {
+        if (appContext == null) {
+            appContext = context.getApplicationContext();
+            appContext.registerComponentCallbacks(componentCallbacks);
+        }
+        showPending();
+    }
+
+    /**
+     * 菜单从窗口移除或解除绑定时停止监听及预加载
+     */
+    void onDetached() {
+        if (appContext != null) {
+            appContext.unregisterComponentCallbacks(componentCallbacks);
+            appContext = null;
+        }
+        cancelPrefetch();
+    }
+
+    private void cancelPrefetch() {
+        if (prefetchScheduled) {
+            prefetchScheduled = false;
+            Looper.myQueue().removeIdleHandler(prefetchIdleHandler);
+        }
+    }
+
+    /**
+     * 保存状态后及销毁后不能再提交事务
+     */
+    private boolean isUsable() {
+        return !fragmentManager.isStateSaved() && !fragmentManager.isDestroyed();
+    }
+
+    /**
+     * 使用 item 的 key 作为 tag, 调整 item 顺序后仍对应同一个 Fragment
+     */
+    private String getTag(int position) {
+        String key = menuLayout.getItemKey(position);
+        return TAG_PREFIX + (key != null ? key : "#" + position);
+    }
+
+    public interface FragmentCreator {
+
+        /**
+         * 创建 Fragment, 每个位置首次显示或预加载时调用
+         *
+         * @param position item 的位置
+         * @return Fragment
+         */
+        Fragment createFragment(int position);
+    }
+}
@@ -0,0 +1,310 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.collection.LruCache;
+import androidx.tracing.Trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuIconLoader
+ * @Description 从文件、Uri 异步加载图标, 在后台线程解码并按显示尺寸降采样,
+ * 结果缓存在内存(LRU)及磁盘(降采样后的图片)中
+ * @Date 2020/6/17
+ */
+public final class MenuIconLoader {
+
+    /**
+     * 默认内存缓存 4MB, 磁盘缓存 10MB
+     */
+    private static final int DEFAULT_MEMORY_CACHE_SIZE = 4 * 1024 * 1024;
+    private static final long DEFAULT_DISK_CACHE_SIZE = 10 * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "bottom_menu_icons";
+
+    /**
+     * 内存缓存按 Uri 及尺寸存放, 同时记录加载时的来源版本, 命中后在后台线程校验版本
+     */
+    private static final LruCache<String, CachedIcon> MEMORY_CACHE = new LruCache<String, CachedIcon>(DEFAULT_MEMORY_CACHE_SIZE) {
+        @Override
+        protected int sizeOf(String key, CachedIcon value) {
+            return value.bitmap.getAllocationByteCount();
+        }
+    };
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2);
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private static volatile long diskCacheSize = DEFAULT_DISK_CACHE_SIZE;
+
+    private MenuIconLoader() {
+    }
+
+    /**
+     * 设置内存缓存容量(字节)
+     */
+    public static void setMemoryCacheSize(int maxSize) {
+        MEMORY_CACHE.resize(maxSize);
+    }
+
+    /**
+     * 设置磁盘缓存容量(字节)
+     */
+    public static void setDiskCacheSize(long maxSize) {
+        diskCacheSize = maxSize;
+    }
+
+    /**
+     * 清空内存缓存
+     */
+    public static void clearMemoryCache() {
+        MEMORY_CACHE.evictAll();
+    }
+
+    /**
+     * 加载图标, 内存命中时直接回调, 否则在后台线程加载后在主线程回调, 加载失败时回调 {@link OnIconLoadedListener#onIconFailed()}.
+     * 文件来源命中内存缓存后在后台线程校验修改时间, 文件已更新时重新加载并再次回调
+     */
+    static void load(Context context, final Uri uri, final int width, final int height, final OnIconLoadedListener onIconLoadedListener) {
+        final Context appContext = context.getApplicationContext();
+        final String key = uri + "@" + width + "x" + height;
+        final CachedIcon cached = MEMORY_CACHE.get(key);
+        if (cached != null) {
+            onIconLoadedListener.onIconLoaded(new BitmapDrawable(appContext.getResources(), cached.bitmap));
+            if (!isFile(uri)) {
+                return;
+            }
+        }
+
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // 来源版本只在后台线程读取, 不在主线程访问文件
+                String version = sourceVersion(uri);
+                if (cached != null && cached.version.equals(version)) {
+                    return;
+                }
+                final Bitmap bitmap = loadBitmap(appContext, uri, key + version, width, height);
+                if (bitmap == null) {
+                    MAIN_HANDLER.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onIconLoadedListener.onIconFailed();
+                        }
+                    });
+                    return;
+                }
+                MEMORY_CACHE.put(key, new CachedIcon(bitmap, version));
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onIconLoadedListener.onIconLoaded(new BitmapDrawable(appContext.getResources(), bitmap));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @param diskKey Uri、尺寸及来源版本组成的磁盘缓存 key
+     */
+    private static Bitmap loadBitmap(Context context, Uri uri, String diskKey, int width, int height) {
+        File cacheDir = new File(context.getCacheDir(), DISK_CACHE_DIR);
+        File cacheFile = new File(cacheDir, md5(diskKey) + ".png");
+        if (cacheFile.exists()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(cacheFile.getAbsolutePath());
+            if (bitmap != null) {
+                cacheFile.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+        }
+
+        Bitmap bitmap;
+        Trace.beginSection(MenuMetrics.TRACE_DECODE_ICON);
+        try {
+            bitmap = decode(context, uri, width, height);
+        } finally {
+            Trace.endSection();
+        }
+        if (bitmap != null) {
+            writeDiskCache(cacheDir, cacheFile, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static boolean isFile(Uri uri) {
+        return "file".equals(uri.getScheme()) && uri.getPath() != null;
+    }
+
+    /**
+     * 文件来源使用修改时间区分版本, 文件更新后不再使用旧缓存, 后台线程调用
+     */
+    private static String sourceVersion(Uri uri) {
+        if (isFile(uri)) {
+            return "#" + new File(uri.getPath()).lastModified();
+        }
+        return "";
+    }
+
+    /**
+     * 先读取尺寸计算采样率, 再按采样率解码并缩放到显示尺寸以内
+     */
+    private static Bitmap decode(Context context, Uri uri, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(context, uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = decodeStream(context, uri, options);
+        if (bitmap == null) {
+            return null;
+        }
+
+        float scale = Math.min((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+        if (scale < 1f) {
+            int scaledWidth = Math.max(1, Math.round(bitmap.getWidth() * scale));
+            int scaledHeight = Math.max(1, Math.round(bitmap.getHeight() * scale));
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, scaledWidth, scaledHeight, true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+
+    private static Bitmap decodeStream(Context context, Uri uri, BitmapFactory.Options options) {
+        InputStream inputStream = null;
+        try {
+            inputStream = context.getContentResolver().openInputStream(uri);
+            return inputStream == null ? null : BitmapFactory.decodeStream(inputStream, null, options);
+        } catch (IOException | SecurityException e) {
+            return null;
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private static synchronized void writeDiskCache(File cacheDir, File cacheFile, Bitmap bitmap) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            return;
+        }
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(cacheFile);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+        } catch (IOException e) {
+            cacheFile.delete();
+        } finally {
+            closeQuietly(outputStream);
+        }
+        trimDiskCache(cacheDir);
+    }
+
+    /**
+     * 超出磁盘缓存容量时, 删除最久未使用的文件
+     */
+    private static void trimDiskCache(File cacheDir) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long totalSize = 0;
+        for (File file : files) {
+            totalSize += file.length();
+        }
+        if (totalSize <= diskCacheSize) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (totalSize <= diskCacheSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalSize -= length;
+            }
+        }
+    }
+
+    private static String md5(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] bytes = digest.digest(value.getBytes("UTF-8"));
+            return String.format("%032x", new BigInteger(1, bytes));
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return String.valueOf(value.hashCode());
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 内存缓存的图标及加载时的来源版本
+     */
+    private static final class CachedIcon {
+
+        final Bitmap bitmap;
+        final String version;
+
+        CachedIcon(Bitmap bitmap, String version) {
+            this.bitmap = bitmap;
+            this.version = version;
+        }
+    }
+
+    interface OnIconLoadedListener {
+
+        /**
+         * 加载完成, 主线程
+         *
+         * @param icon 图标
+         */
+        void onIconLoaded(BitmapDrawable icon);
+
+        /**
+         * 加载失败(来源不存在、无权限或无法解码), 主线程
+         */
+        void onIconFailed();
+    }
+}
@@ -0,0 +1,125 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.collection.LruCache;
+import androidx.tracing.Trace;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuIconRasterCache
+ * @Description 图标光栅化缓存, 将图标(如 VectorDrawable、大尺寸图片)按实际显示尺寸及密度绘制成 Bitmap,
+ * 多个 item、多个菜单共用同一张 Bitmap, 超出容量时按 LRU 淘汰
+ * @Date 2020/6/16
+ */
+public final class MenuIconRasterCache {
+
+    /**
+     * 默认容量 2MB
+     */
+    private static final int DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+    private static final LruCache<Key, Bitmap> CACHE = new LruCache<Key, Bitmap>(DEFAULT_MAX_SIZE) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getAllocationByteCount();
+        }
+    };
+
+    private MenuIconRasterCache() {
+    }
+
+    /**
+     * 设置缓存容量(字节)
+     */
+    public static void setMaxSize(int maxSize) {
+        CACHE.resize(maxSize);
+    }
+
+    /**
+     * 当前缓存占用(字节)
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.evictAll();
+    }
+
+    /**
+     * 获取光栅化后的图标, 图标不支持光栅化(有状态、动画、无 ConstantState)或尺寸无效时返回原图标
+     */
+    static Drawable rasterize(Resources resources, Drawable source, int width, int height) {
+        if (source == null || width <= 0 || height <= 0 || source.isStateful() || source instanceof Animatable) {
+            return source;
+        }
+        Drawable.ConstantState constantState = source.getConstantState();
+        if (constantState == null) {
+            return source;
+        }
+
+        Key key = new Key(constantState, width, height, resources.getDisplayMetrics().densityDpi);
+        Bitmap bitmap = CACHE.get(key);
+        if (bitmap == null) {
+            Trace.beginSection(MenuMetrics.TRACE_RASTERIZE);
+            try {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(bitmap);
+                Rect oldBounds = source.copyBounds();
+                source.setBounds(0, 0, width, height);
+                source.draw(canvas);
+                source.setBounds(oldBounds);
+            } finally {
+                Trace.endSection();
+            }
+            CACHE.put(key, bitmap);
+        }
+        return new BitmapDrawable(resources, bitmap);
+    }
+
+    private static class Key {
+
+        private final Drawable.ConstantState constantState;
+        private final int width;
+        private final int height;
+        private final int densityDpi;
+
+        Key(Drawable.ConstantState constantState, int width, int height, int densityDpi) {
+            this.constantState = constantState;
+            this.width = width;
+            this.height = height;
+            this.densityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return constantState == key.constantState && width == key.width && height == key.height && densityDpi == key.densityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(constantState);
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + densityDpi;
+            return result;
+        }
+    }
+}
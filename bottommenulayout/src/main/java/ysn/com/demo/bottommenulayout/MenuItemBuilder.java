@@ -1,7 +1,19 @@
 package ysn.com.demo.bottommenulayout;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 /**
  * @Author yangsanning
@@ -11,8 +23,45 @@ import android.graphics.drawable.Drawable;
  */
 public class MenuItemBuilder {
 
+    private static final String TAG = "MenuItemBuilder";
+
+    private static final String SPEC_KEY = "key";
+    private static final String SPEC_NORMAL_ICON = "normalIcon";
+    private static final String SPEC_NORMAL_ICON_URI = "normalIconUri";
+    private static final String SPEC_SELECTED_ICON = "selectedIcon";
+    private static final String SPEC_SELECTED_ICON_URI = "selectedIconUri";
+    private static final String SPEC_ICON_TINT = "iconTint";
+    private static final String SPEC_ICON_TINT_COLORS = "iconTintColors";
+    private static final String SPEC_RASTERIZE_ICON = "rasterizeIcon";
+    private static final String SPEC_ICON_WIDTH = "iconWidth";
+    private static final String SPEC_ICON_HEIGHT = "iconHeight";
+    private static final String SPEC_TEXT = "text";
+    private static final String SPEC_TEXT_RES = "textRes";
+    private static final String SPEC_TEXT_SIZE = "textSize";
+    private static final String SPEC_TEXT_NORMAL_COLOR = "textNormalColor";
+    private static final String SPEC_TEXT_SELECTED_COLOR = "textSelectedColor";
+    private static final String SPEC_MARGIN_TOP = "marginTop";
+    private static final String SPEC_ITEM_PADDING = "itemPadding";
+    private static final String SPEC_ENABLED_CLICK_DRAWABLE = "enabledClickDrawable";
+    private static final String SPEC_CLICK_DRAWABLE = "clickDrawable";
+    private static final String SPEC_FLAT = "flat";
+    private static final String SPEC_UNREAD_TEXT_SIZE = "unreadTextSize";
+    private static final String SPEC_MAX_UNREAD_NUM = "maxUnreadNum";
+    private static final String SPEC_UNREAD_TEXT_COLOR = "unreadTextColor";
+    private static final String SPEC_MSG_TEXT_SIZE = "msgTextSize";
+    private static final String SPEC_MSG_TEXT_COLOR = "msgTextColor";
+
+    private static final int LAZY_UNREAD_TEXT_BG = 1;
+    private static final int LAZY_MSG_TEXT_BG = 1 << 1;
+    private static final int LAZY_MSG_POINT_BG = 1 << 2;
+
     Context context;
 
+    /**
+     * key: item 的唯一标识, 用于 {@link BottomMenuLayout#setItems(java.util.List)} 比较新旧 item, 默认使用文本
+     */
+    String key;
+
     /**
      * normalIcon： 默认图标
      * selectedIcon： 选中图标
@@ -24,6 +73,33 @@ public class MenuItemBuilder {
     int iconWidth;
     int iconHeight;
 
+    /**
+     * iconTint: 图标着色, 根据 selected 状态着色, 设置后可不设置选中图标
+     */
+    ColorStateList iconTint;
+
+    /**
+     * rasterizeIcon: 是否按显示尺寸将图标光栅化并缓存, 见 {@link MenuIconRasterCache}
+     */
+    boolean rasterizeIcon;
+
+    /**
+     * normalIconUri: 默认图标来源(文件、Uri), 异步加载
+     * selectedIconUri: 选中图标来源(文件、Uri), 异步加载
+     * placeholderIcon: 图标加载完成前显示的占位图
+     * errorIcon: 图标加载失败时显示的图标, 未设置时保留占位图
+     */
+    Uri normalIconUri;
+    Uri selectedIconUri;
+    Drawable placeholderIcon;
+    Drawable errorIcon;
+
+    /**
+     * 内存不足时释放的未显示图标, 见 {@link #releaseIcon(boolean)}
+     */
+    boolean normalIconReleased;
+    boolean selectedIconReleased;
+
     /**
      * text: 文本
      * textSize: 文本字体大小
@@ -35,6 +111,11 @@ public class MenuItemBuilder {
     int textNormalColor;
     int textSelectedColor;
 
+    /**
+     * precomputedLabel: 后台线程预计算的文本排版结果
+     */
+    Future<MenuLabelPrecomputer.Result> precomputedLabel;
+
     /**
      * maxUnreadNum: 最大显示未读数
      * unreadTextSize: 未读数字体大小
@@ -71,6 +152,28 @@ public class MenuItemBuilder {
     int marginTop = 0;
     int itemPadding;
 
+    /**
+     * flat: 是否使用扁平化模式(单 View 直接绘制, 不 inflate 子 View)
+     */
+    boolean flat = false;
+
+    /**
+     * style: XML 中通过 style 声明时共用的样式, 角标背景未设置时从中创建
+     */
+    MenuItemStyle style;
+
+    /**
+     * spec: 以资源 id、Uri 等可保存的形式记录的设置, 用于保存及恢复 item, 见 {@link #saveState()}
+     * hasUnsavedDrawable: 是否直接设置了角标背景等无法保存的 Drawable
+     */
+    private final Bundle spec = new Bundle();
+    private boolean hasUnsavedDrawable;
+
+    /**
+     * lazyBadgeBgs: 首次使用时创建的角标背景(默认或共用样式), 内存不足时可释放, 再次使用时重新创建
+     */
+    private int lazyBadgeBgs;
+
     public MenuItemBuilder(Context context) {
         this.context = context;
         textSize = sp2px(12);
@@ -85,11 +188,56 @@ public class MenuItemBuilder {
         msgTextColor = getColor(R.color.menu_item_view_text_msg_color);
     }
 
+    /**
+     * 使用共用样式创建, 不再逐个解析默认值
+     */
+    MenuItemBuilder(Context context, MenuItemStyle style) {
+        this.context = context;
+        this.style = style;
+        iconWidth = style.iconWidth;
+        iconHeight = style.iconHeight;
+        iconTint = style.iconTint;
+        rasterizeIcon = style.rasterizeIcon;
+        textSize = style.textSize;
+        textNormalColor = style.textNormalColor;
+        textSelectedColor = style.textSelectedColor;
+        maxUnreadNum = style.maxUnreadNum;
+        unreadTextSize = style.unreadTextSize;
+        unreadTextColor = style.unreadTextColor;
+        msgTextSize = style.msgTextSize;
+        msgTextColor = style.msgTextColor;
+        enabledClickDrawable = style.enabledClickDrawable;
+        if (enabledClickDrawable) {
+            clickDrawable = MenuItemStyle.newDrawable(style.clickDrawable, context);
+        }
+        marginTop = style.marginTop;
+        itemPadding = style.itemPadding;
+        flat = style.flat;
+    }
+
+    /**
+     * 设置唯一标识
+     */
+    public MenuItemBuilder key(String key) {
+        this.key = key;
+        spec.putString(SPEC_KEY, key);
+        return this;
+    }
+
+    /**
+     * 获取唯一标识, 未设置时使用文本
+     */
+    public String getKey() {
+        return key != null ? key : text;
+    }
+
     /**
      * 设置默认图标
      */
     public MenuItemBuilder normalIcon(int normalIconResId) {
-        return normalIcon(getDrawable(normalIconResId));
+        normalIcon(getDrawable(normalIconResId));
+        spec.putInt(SPEC_NORMAL_ICON, normalIconResId);
+        return this;
     }
 
     /**
@@ -97,14 +245,39 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder normalIcon(Drawable resId) {
         this.normalIcon = resId;
+        this.normalIconUri = null;
+        this.normalIconReleased = false;
+        spec.remove(SPEC_NORMAL_ICON);
+        spec.remove(SPEC_NORMAL_ICON_URI);
+        return this;
+    }
+
+    /**
+     * 设置默认图标, 从 Uri 异步加载并按图标尺寸降采样, 加载完成前显示占位图
+     */
+    public MenuItemBuilder normalIcon(Uri uri) {
+        this.normalIconUri = uri;
+        this.normalIcon = null;
+        this.normalIconReleased = false;
+        spec.remove(SPEC_NORMAL_ICON);
+        spec.putParcelable(SPEC_NORMAL_ICON_URI, uri);
         return this;
     }
 
+    /**
+     * 设置默认图标, 从文件异步加载并按图标尺寸降采样, 加载完成前显示占位图
+     */
+    public MenuItemBuilder normalIcon(File file) {
+        return normalIcon(Uri.fromFile(file));
+    }
+
     /**
      * 设置选中图标
      */
     public MenuItemBuilder selectedIcon(int resId) {
-        return selectedIcon(getDrawable(resId));
+        selectedIcon(getDrawable(resId));
+        spec.putInt(SPEC_SELECTED_ICON, resId);
+        return this;
     }
 
     /**
@@ -112,14 +285,132 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder selectedIcon(Drawable selectedIcon) {
         this.selectedIcon = selectedIcon;
+        this.selectedIconUri = null;
+        this.selectedIconReleased = false;
+        spec.remove(SPEC_SELECTED_ICON);
+        spec.remove(SPEC_SELECTED_ICON_URI);
+        return this;
+    }
+
+    /**
+     * 设置选中图标, 从 Uri 异步加载并按图标尺寸降采样, 加载完成前显示占位图
+     */
+    public MenuItemBuilder selectedIcon(Uri uri) {
+        this.selectedIconUri = uri;
+        this.selectedIcon = null;
+        this.selectedIconReleased = false;
+        spec.remove(SPEC_SELECTED_ICON);
+        spec.putParcelable(SPEC_SELECTED_ICON_URI, uri);
+        return this;
+    }
+
+    /**
+     * 设置选中图标, 从文件异步加载并按图标尺寸降采样, 加载完成前显示占位图
+     */
+    public MenuItemBuilder selectedIcon(File file) {
+        return selectedIcon(Uri.fromFile(file));
+    }
+
+    /**
+     * 设置异步加载图标时的占位图, 创建 item 时使用, 与设置图标来源的先后顺序无关
+     */
+    public MenuItemBuilder placeholderIcon(Drawable placeholderIcon) {
+        this.placeholderIcon = placeholderIcon;
         return this;
     }
 
+    /**
+     * 设置从文件、Uri 加载图标失败(不存在、无权限或无法解码)时显示的图标, 未设置时保留占位图
+     */
+    public MenuItemBuilder errorIcon(Drawable errorIcon) {
+        this.errorIcon = errorIcon;
+        return this;
+    }
+
+    /**
+     * 加载失败时显示的图标, 默认图标与选中图标各自持有一个实例
+     */
+    Drawable createErrorIcon() {
+        if (errorIcon.getConstantState() != null) {
+            return errorIcon.getConstantState().newDrawable(context.getResources());
+        }
+        return errorIcon;
+    }
+
+    /**
+     * 创建或绑定 item 时调用, 为尚未加载完成的 Uri 图标设置占位图
+     */
+    void applyPlaceholderIcons() {
+        if (normalIcon == null && normalIconUri != null && !normalIconReleased) {
+            normalIcon = createPlaceholderIcon();
+        }
+        if (selectedIcon == null && selectedIconUri != null && !selectedIconReleased) {
+            selectedIcon = createPlaceholderIcon();
+        }
+    }
+
+    private Drawable createPlaceholderIcon() {
+        if (placeholderIcon != null && placeholderIcon.getConstantState() != null) {
+            // 默认图标与选中图标各自持有一个实例
+            return placeholderIcon.getConstantState().newDrawable(context.getResources());
+        }
+        if (placeholderIcon != null) {
+            return placeholderIcon;
+        }
+        // 透明占位图按图标尺寸(未设置时 24dp)占位, 加载完成前后 item 高度不变
+        int defaultSize = (int) (MenuItemView.DEFAULT_ICON_SIZE * context.getResources().getDisplayMetrics().density + 0.5f);
+        boolean hasSize = iconWidth != 0 && iconHeight != 0;
+        GradientDrawable placeholder = new GradientDrawable();
+        placeholder.setColor(Color.TRANSPARENT);
+        placeholder.setSize(hasSize ? iconWidth : defaultSize, hasSize ? iconHeight : defaultSize);
+        return placeholder;
+    }
+
+    /**
+     * 设置图标着色, 设置后只需一个默认图标, 选中时通过 state_selected 着色
+     */
+    public MenuItemBuilder iconTint(ColorStateList iconTint) {
+        this.iconTint = iconTint;
+        spec.putParcelable(SPEC_ICON_TINT, iconTint);
+        spec.remove(SPEC_ICON_TINT_COLORS);
+        return this;
+    }
+
+    /**
+     * 设置图标默认及选中时的着色
+     */
+    public MenuItemBuilder iconTint(int normalColorId, int selectedColorId) {
+        int[][] states = new int[][]{new int[]{android.R.attr.state_selected}, new int[0]};
+        int[] colors = new int[]{getColor(selectedColorId), getColor(normalColorId)};
+        iconTint(new ColorStateList(states, colors));
+        // 保存颜色资源, 恢复时按新配置(如夜间模式)重新解析
+        spec.remove(SPEC_ICON_TINT);
+        spec.putIntArray(SPEC_ICON_TINT_COLORS, new int[]{normalColorId, selectedColorId});
+        return this;
+    }
+
+    /**
+     * 是否按显示尺寸将图标光栅化并缓存, 适用于 VectorDrawable 或尺寸远大于显示尺寸的图片
+     */
+    public MenuItemBuilder rasterizeIcon(boolean rasterizeIcon) {
+        this.rasterizeIcon = rasterizeIcon;
+        spec.putBoolean(SPEC_RASTERIZE_ICON, rasterizeIcon);
+        return this;
+    }
+
+    /**
+     * 是否为单图标模式: 未设置选中图标, 且设置了着色或默认图标本身会根据状态变化(如 StateListDrawable)
+     */
+    boolean isSingleIcon() {
+        return selectedIcon == null && !selectedIconReleased && normalIcon != null && (iconTint != null || normalIcon.isStateful());
+    }
+
     /**
      * 图标宽度
      */
     public MenuItemBuilder iconWidth(int iconWidth) {
         this.iconWidth = iconWidth;
+        spec.putInt(SPEC_ICON_WIDTH, iconWidth);
         return this;
     }
 
@@ -128,6 +419,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder iconHeight(int iconHeight) {
         this.iconHeight = iconHeight;
+        spec.putInt(SPEC_ICON_HEIGHT, iconHeight);
         return this;
     }
 
@@ -135,7 +427,9 @@ public class MenuItemBuilder {
      * 设置标题
      */
     public MenuItemBuilder text(int textId) {
-        return text(context.getString(textId));
+        text(context.getString(textId));
+        spec.putInt(SPEC_TEXT_RES, textId);
+        return this;
     }
 
     /**
@@ -143,6 +437,9 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder text(String text) {
         this.text = text;
+        this.precomputedLabel = null;
+        spec.putString(SPEC_TEXT, text);
+        spec.remove(SPEC_TEXT_RES);
         return this;
     }
 
@@ -151,6 +448,18 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder textSize(int textSize) {
         this.textSize = sp2px(textSize);
+        spec.putInt(SPEC_TEXT_SIZE, textSize);
+        this.precomputedLabel = null;
+        return this;
+    }
+
+    /**
+     * 在 executor 中预计算文本排版, 需在设置文本及字体大小之后调用, MenuItemView 创建时若已计算完成则直接使用
+     */
+    public MenuItemBuilder precomputeText(Executor executor) {
+        if (text != null) {
+            precomputedLabel = MenuLabelPrecomputer.precompute(context, text, textSize, executor);
+        }
         return this;
     }
 
@@ -159,6 +468,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder textNormalColor(int textNormalColor) {
         this.textNormalColor = getColor(textNormalColor);
+        spec.putInt(SPEC_TEXT_NORMAL_COLOR, textNormalColor);
         return this;
     }
 
@@ -167,6 +477,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder textSelectedColor(int textSelectedColor) {
         this.textSelectedColor = getColor(textSelectedColor);
+        spec.putInt(SPEC_TEXT_SELECTED_COLOR, textSelectedColor);
         return this;
     }
 
@@ -175,6 +486,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder marginTop(int marginTop) {
         this.marginTop = marginTop;
+        spec.putInt(SPEC_MARGIN_TOP, marginTop);
         return this;
     }
 
@@ -183,14 +495,25 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder enabledClickDrawable(boolean enabledClickDrawable) {
         this.enabledClickDrawable = enabledClickDrawable;
+        spec.putBoolean(SPEC_ENABLED_CLICK_DRAWABLE, enabledClickDrawable);
         return this;
     }
 
     /**
-     * 设置点击效果
+     * 设置点击效果, 按资源 id 保存, 重建页面后可恢复
+     */
+    public MenuItemBuilder clickDrawable(int resId) {
+        clickDrawable(getDrawable(resId));
+        spec.putInt(SPEC_CLICK_DRAWABLE, resId);
+        return this;
+    }
+
+    /**
+     * 设置点击效果, 直接设置的 Drawable 无法保存, 需要恢复时使用 {@link #clickDrawable(int)}
      */
     public MenuItemBuilder clickDrawable(Drawable clickDrawable) {
         this.clickDrawable = clickDrawable;
+        spec.remove(SPEC_CLICK_DRAWABLE);
         return this;
     }
 
@@ -199,6 +522,16 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder itemPadding(int itemPadding) {
         this.itemPadding = itemPadding;
+        spec.putInt(SPEC_ITEM_PADDING, itemPadding);
+        return this;
+    }
+
+    /**
+     * 是否使用扁平化模式
+     */
+    public MenuItemBuilder flat(boolean flat) {
+        this.flat = flat;
+        spec.putBoolean(SPEC_FLAT, flat);
         return this;
     }
 
@@ -207,6 +540,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder unreadTextSize(int unreadTextSize) {
         this.unreadTextSize = sp2px(unreadTextSize);
+        spec.putInt(SPEC_UNREAD_TEXT_SIZE, unreadTextSize);
         return this;
     }
 
@@ -215,6 +549,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder maxUnreadNum(int maxUnreadNum) {
         this.maxUnreadNum = maxUnreadNum;
+        spec.putInt(SPEC_MAX_UNREAD_NUM, maxUnreadNum);
         return this;
     }
 
@@ -223,6 +558,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder msgTextSize(int msgTextSize) {
         this.msgTextSize = sp2px(msgTextSize);
+        spec.putInt(SPEC_MSG_TEXT_SIZE, msgTextSize);
         return this;
     }
 
@@ -231,6 +567,8 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder unreadTextBg(Drawable unreadTextBg) {
         this.unreadTextBg = unreadTextBg;
+        lazyBadgeBgs &= ~LAZY_UNREAD_TEXT_BG;
+        hasUnsavedDrawable |= unreadTextBg != null;
         return this;
     }
 
@@ -239,6 +577,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder unreadTextColor(int unreadTextColor) {
         this.unreadTextColor = getColor(unreadTextColor);
+        spec.putInt(SPEC_UNREAD_TEXT_COLOR, unreadTextColor);
         return this;
     }
 
@@ -247,6 +586,7 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder msgTextColor(int msgTextColor) {
         this.msgTextColor = getColor(msgTextColor);
+        spec.putInt(SPEC_MSG_TEXT_COLOR, msgTextColor);
         return this;
     }
 
@@ -255,6 +595,8 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder msgTextBg(Drawable msgTextBg) {
         this.msgTextBg = msgTextBg;
+        lazyBadgeBgs &= ~LAZY_MSG_TEXT_BG;
+        hasUnsavedDrawable |= msgTextBg != null;
         return this;
     }
 
@@ -263,6 +605,8 @@ public class MenuItemBuilder {
      */
     public MenuItemBuilder msgPointBg(Drawable msgPointBg) {
         this.msgPointBg = msgPointBg;
+        lazyBadgeBgs &= ~LAZY_MSG_POINT_BG;
+        hasUnsavedDrawable |= msgPointBg != null;
         return this;
     }
 
@@ -274,7 +618,7 @@ public class MenuItemBuilder {
             throw new NullPointerException("默认图标不能为空!");
         }
 
-        if (selectedIcon == null) {
+        if (selectedIcon == null && !isSingleIcon()) {
             throw new NullPointerException("选中图标不能为空");
         }
 
@@ -283,17 +627,273 @@ public class MenuItemBuilder {
             throw new IllegalStateException("点击背景不能为空");
         }
 
+    }
+
+    /**
+     * 未读数背景, 未设置时在首次使用时加载默认背景
+     */
+    Drawable getUnreadTextBg() {
         if (unreadTextBg == null) {
-            unreadTextBg = context.getResources().getDrawable(R.drawable.bg_unread_text);
+            unreadTextBg = style != null ? MenuItemStyle.newDrawable(style.unreadTextBg, context) : null;
+            if (unreadTextBg == null) {
+                unreadTextBg = getDrawable(R.drawable.bg_unread_text);
+            }
+            lazyBadgeBgs |= LAZY_UNREAD_TEXT_BG;
         }
+        return unreadTextBg;
+    }
 
+    /**
+     * 提示消息背景, 未设置时在首次使用时加载默认背景
+     */
+    Drawable getMsgTextBg() {
         if (msgTextBg == null) {
-            msgTextBg = context.getResources().getDrawable(R.drawable.bg_msg_text);
+            msgTextBg = style != null ? MenuItemStyle.newDrawable(style.msgTextBg, context) : null;
+            if (msgTextBg == null) {
+                msgTextBg = getDrawable(R.drawable.bg_msg_text);
+            }
+            lazyBadgeBgs |= LAZY_MSG_TEXT_BG;
         }
+        return msgTextBg;
+    }
 
+    /**
+     * 小红点背景, 未设置时在首次使用时加载默认背景
+     */
+    Drawable getMsgPointBg() {
         if (msgPointBg == null) {
-            msgPointBg = context.getResources().getDrawable(R.drawable.bg_msg_point);
+            msgPointBg = style != null ? MenuItemStyle.newDrawable(style.msgPointBg, context) : null;
+            if (msgPointBg == null) {
+                msgPointBg = getDrawable(R.drawable.bg_msg_point);
+            }
+            lazyBadgeBgs |= LAZY_MSG_POINT_BG;
+        }
+        return msgPointBg;
+    }
+
+    /**
+     * 释放首次使用时创建且当前未显示的角标背景, 直接设置的背景无法重新创建, 不释放
+     *
+     * @param shownKind 当前显示的角标类型
+     */
+    void releaseBadgeBgs(int shownKind) {
+        if ((lazyBadgeBgs & LAZY_UNREAD_TEXT_BG) != 0 && shownKind != MenuState.BADGE_UNREAD) {
+            unreadTextBg = null;
+            lazyBadgeBgs &= ~LAZY_UNREAD_TEXT_BG;
+        }
+        if ((lazyBadgeBgs & LAZY_MSG_TEXT_BG) != 0 && shownKind != MenuState.BADGE_MSG) {
+            msgTextBg = null;
+            lazyBadgeBgs &= ~LAZY_MSG_TEXT_BG;
+        }
+        if ((lazyBadgeBgs & LAZY_MSG_POINT_BG) != 0 && shownKind != MenuState.BADGE_POINT) {
+            msgPointBg = null;
+            lazyBadgeBgs &= ~LAZY_MSG_POINT_BG;
+        }
+    }
+
+    /**
+     * 释放未显示的图标(含异步加载的 Bitmap), 仅释放可通过资源 id 或 Uri 重新获取的, 需要时通过 {@link #reloadIcons()} 重新获取
+     *
+     * @param selected 释放选中图标还是默认图标
+     * @return 是否已释放
+     */
+    boolean releaseIcon(boolean selected) {
+        if (selected) {
+            if (selectedIcon == null || (selectedIconUri == null && !spec.containsKey(SPEC_SELECTED_ICON))) {
+                return false;
+            }
+            selectedIcon = null;
+            selectedIconReleased = true;
+        } else {
+            if (normalIcon == null || (normalIconUri == null && !spec.containsKey(SPEC_NORMAL_ICON))) {
+                return false;
+            }
+            normalIcon = null;
+            normalIconReleased = true;
+        }
+        return true;
+    }
+
+    /**
+     * 重新获取 {@link #releaseIcon(boolean)} 释放的图标, 资源图标直接获取, Uri 图标先使用占位图, 由调用方重新加载
+     */
+    void reloadIcons() {
+        if (normalIconReleased) {
+            normalIconReleased = false;
+            normalIcon = normalIconUri != null ? createPlaceholderIcon() : getDrawable(spec.getInt(SPEC_NORMAL_ICON));
+        }
+        if (selectedIconReleased) {
+            selectedIconReleased = false;
+            selectedIcon = selectedIconUri != null ? createPlaceholderIcon() : getDrawable(spec.getInt(SPEC_SELECTED_ICON));
+        }
+    }
+
+    /**
+     * 是否与另一个 builder 显示相同的内容, 用于 {@link BottomMenuLayout#setItems(java.util.List)} 判断 key 相同的 item 是否需要重新绑定.
+     * 资源及 Uri 按来源比较, 直接设置的 Drawable 按对象比较
+     */
+    boolean hasSameContent(MenuItemBuilder other) {
+        if (this == other) {
+            return true;
+        }
+        return equalsText(text, other.text) && textSize == other.textSize
+                && textNormalColor == other.textNormalColor && textSelectedColor == other.textSelectedColor
+                && iconWidth == other.iconWidth && iconHeight == other.iconHeight
+                && rasterizeIcon == other.rasterizeIcon && hasSameIconTint(other)
+                && hasSameIcon(other, false) && hasSameIcon(other, true) && placeholderIcon == other.placeholderIcon
+                && errorIcon == other.errorIcon
+                && marginTop == other.marginTop && itemPadding == other.itemPadding && flat == other.flat
+                && maxUnreadNum == other.maxUnreadNum && unreadTextSize == other.unreadTextSize
+                && unreadTextColor == other.unreadTextColor && msgTextSize == other.msgTextSize
+                && msgTextColor == other.msgTextColor
+                && enabledClickDrawable == other.enabledClickDrawable && hasSameClickDrawable(other)
+                && hasSameBadgeBg(other, LAZY_UNREAD_TEXT_BG, unreadTextBg, other.unreadTextBg)
+                && hasSameBadgeBg(other, LAZY_MSG_TEXT_BG, msgTextBg, other.msgTextBg)
+                && hasSameBadgeBg(other, LAZY_MSG_POINT_BG, msgPointBg, other.msgPointBg);
+    }
+
+    private boolean hasSameIconTint(MenuItemBuilder other) {
+        int[] colors = spec.getIntArray(SPEC_ICON_TINT_COLORS);
+        int[] otherColors = other.spec.getIntArray(SPEC_ICON_TINT_COLORS);
+        if (colors != null || otherColors != null) {
+            return java.util.Arrays.equals(colors, otherColors);
+        }
+        return iconTint == other.iconTint;
+    }
+
+    private boolean hasSameClickDrawable(MenuItemBuilder other) {
+        if (spec.containsKey(SPEC_CLICK_DRAWABLE) && other.spec.containsKey(SPEC_CLICK_DRAWABLE)) {
+            return spec.getInt(SPEC_CLICK_DRAWABLE) == other.spec.getInt(SPEC_CLICK_DRAWABLE);
+        }
+        return clickDrawable == other.clickDrawable;
+    }
+
+    private boolean hasSameIcon(MenuItemBuilder other, boolean selected) {
+        String resKey = selected ? SPEC_SELECTED_ICON : SPEC_NORMAL_ICON;
+        if (spec.containsKey(resKey) || other.spec.containsKey(resKey)) {
+            return spec.containsKey(resKey) && other.spec.containsKey(resKey)
+                    && spec.getInt(resKey) == other.spec.getInt(resKey);
+        }
+        Uri uri = selected ? selectedIconUri : normalIconUri;
+        Uri otherUri = selected ? other.selectedIconUri : other.normalIconUri;
+        if (uri != null || otherUri != null) {
+            return uri != null && uri.equals(otherUri);
         }
+        return selected ? selectedIcon == other.selectedIcon : normalIcon == other.normalIcon;
+    }
+
+    /**
+     * 两边都未直接设置时角标背景由共用样式决定, 否则按对象比较
+     */
+    private boolean hasSameBadgeBg(MenuItemBuilder other, int lazyFlag, Drawable bg, Drawable otherBg) {
+        boolean lazy = bg == null || (lazyBadgeBgs & lazyFlag) != 0;
+        boolean otherLazy = otherBg == null || (other.lazyBadgeBgs & lazyFlag) != 0;
+        if (lazy && otherLazy) {
+            return style == other.style;
+        }
+        return bg == otherBg;
+    }
+
+    private static boolean equalsText(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * 保存设置, 用于重建页面(如屏幕旋转、切换夜间模式)后恢复 item. 资源按 id 保存, 恢复时按新配置重新解析;
+     * 直接设置了 Drawable(图标、角标背景、点击效果)时无法保存, 返回 null 并输出警告
+     */
+    Bundle saveState() {
+        if (hasUnsavedDrawable
+                || (enabledClickDrawable && clickDrawable != null && !spec.containsKey(SPEC_CLICK_DRAWABLE))
+                || (normalIcon != null && !spec.containsKey(SPEC_NORMAL_ICON) && !spec.containsKey(SPEC_NORMAL_ICON_URI))
+                || (selectedIcon != null && !spec.containsKey(SPEC_SELECTED_ICON) && !spec.containsKey(SPEC_SELECTED_ICON_URI))) {
+            if (!spec.isEmpty()) {
+                // 布局中声明的 item 不通过 spec 恢复, 只提示运行时添加的 item
+                Log.w(TAG, "item \"" + getKey() + "\" 直接设置了 Drawable, 无法保存, 重建页面后不会恢复");
+            }
+            return null;
+        }
+        return new Bundle(spec);
+    }
+
+    /**
+     * 根据 {@link #saveState()} 保存的设置重新创建 builder
+     */
+    static MenuItemBuilder restoreState(Context context, Bundle state) {
+        MenuItemBuilder builder = new MenuItemBuilder(context);
+        if (state.containsKey(SPEC_KEY)) {
+            builder.key(state.getString(SPEC_KEY));
+        }
+        if (state.containsKey(SPEC_TEXT_SIZE)) {
+            builder.textSize(state.getInt(SPEC_TEXT_SIZE));
+        }
+        if (state.containsKey(SPEC_TEXT_RES)) {
+            builder.text(state.getInt(SPEC_TEXT_RES));
+        } else if (state.containsKey(SPEC_TEXT)) {
+            builder.text(state.getString(SPEC_TEXT));
+        }
+        if (state.containsKey(SPEC_TEXT_NORMAL_COLOR)) {
+            builder.textNormalColor(state.getInt(SPEC_TEXT_NORMAL_COLOR));
+        }
+        if (state.containsKey(SPEC_TEXT_SELECTED_COLOR)) {
+            builder.textSelectedColor(state.getInt(SPEC_TEXT_SELECTED_COLOR));
+        }
+        if (state.containsKey(SPEC_ICON_WIDTH)) {
+            builder.iconWidth(state.getInt(SPEC_ICON_WIDTH));
+        }
+        if (state.containsKey(SPEC_ICON_HEIGHT)) {
+            builder.iconHeight(state.getInt(SPEC_ICON_HEIGHT));
+        }
+        if (state.containsKey(SPEC_ICON_TINT_COLORS)) {
+            int[] colors = state.getIntArray(SPEC_ICON_TINT_COLORS);
+            builder.iconTint(colors[0], colors[1]);
+        } else if (state.containsKey(SPEC_ICON_TINT)) {
+            builder.iconTint((ColorStateList) state.getParcelable(SPEC_ICON_TINT));
+        }
+        if (state.containsKey(SPEC_RASTERIZE_ICON)) {
+            builder.rasterizeIcon(state.getBoolean(SPEC_RASTERIZE_ICON));
+        }
+        if (state.containsKey(SPEC_NORMAL_ICON)) {
+            builder.normalIcon(state.getInt(SPEC_NORMAL_ICON));
+        } else if (state.containsKey(SPEC_NORMAL_ICON_URI)) {
+            builder.normalIcon((Uri) state.getParcelable(SPEC_NORMAL_ICON_URI));
+        }
+        if (state.containsKey(SPEC_SELECTED_ICON)) {
+            builder.selectedIcon(state.getInt(SPEC_SELECTED_ICON));
+        } else if (state.containsKey(SPEC_SELECTED_ICON_URI)) {
+            builder.selectedIcon((Uri) state.getParcelable(SPEC_SELECTED_ICON_URI));
+        }
+        if (state.containsKey(SPEC_MARGIN_TOP)) {
+            builder.marginTop(state.getInt(SPEC_MARGIN_TOP));
+        }
+        if (state.containsKey(SPEC_ITEM_PADDING)) {
+            builder.itemPadding(state.getInt(SPEC_ITEM_PADDING));
+        }
+        if (state.containsKey(SPEC_ENABLED_CLICK_DRAWABLE)) {
+            builder.enabledClickDrawable(state.getBoolean(SPEC_ENABLED_CLICK_DRAWABLE));
+        }
+        if (state.containsKey(SPEC_CLICK_DRAWABLE)) {
+            builder.clickDrawable(state.getInt(SPEC_CLICK_DRAWABLE));
+        }
+        if (state.containsKey(SPEC_FLAT)) {
+            builder.flat(state.getBoolean(SPEC_FLAT));
+        }
+        if (state.containsKey(SPEC_MAX_UNREAD_NUM)) {
+            builder.maxUnreadNum(state.getInt(SPEC_MAX_UNREAD_NUM));
+        }
+        if (state.containsKey(SPEC_UNREAD_TEXT_SIZE)) {
+            builder.unreadTextSize(state.getInt(SPEC_UNREAD_TEXT_SIZE));
+        }
+        if (state.containsKey(SPEC_UNREAD_TEXT_COLOR)) {
+            builder.unreadTextColor(state.getInt(SPEC_UNREAD_TEXT_COLOR));
+        }
+        if (state.containsKey(SPEC_MSG_TEXT_SIZE)) {
+            builder.msgTextSize(state.getInt(SPEC_MSG_TEXT_SIZE));
+        }
+        if (state.containsKey(SPEC_MSG_TEXT_COLOR)) {
+            builder.msgTextColor(state.getInt(SPEC_MSG_TEXT_COLOR));
+        }
+        return builder;
     }
 
     /**
@@ -303,6 +903,84 @@ public class MenuItemBuilder {
         return new MenuItemView(context).create(this);
     }
 
+    /**
+     * 在 executor 中创建MenuItemView(解析资源、inflate), 完成后在主线程回调.
+     * 后台线程不使用页面的 LayoutInflater(其 Factory 非线程安全), 只创建系统控件, 见 {@link MenuLayoutInflater}
+     *
+     * @return 可在主线程取消的任务, 取消后不再创建或不再回调
+     */
+    public CreateTask createAsync(Executor executor, OnMenuItemCreatedListener onMenuItemCreatedListener) {
+        CreateTask task = new CreateTask(this, onMenuItemCreatedListener);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * {@link #createAsync(Executor, OnMenuItemCreatedListener)} 的创建任务
+     */
+    public static final class CreateTask implements Runnable {
+
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        private final MenuItemBuilder builder;
+        private final OnMenuItemCreatedListener onMenuItemCreatedListener;
+        private volatile boolean cancelled;
+
+        private CreateTask(MenuItemBuilder builder, OnMenuItemCreatedListener onMenuItemCreatedListener) {
+            this.builder = builder;
+            this.onMenuItemCreatedListener = onMenuItemCreatedListener;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            final MenuItemView menuItemView;
+            try {
+                Context context = builder.context;
+                menuItemView = new MenuItemView(context).create(builder, new MenuLayoutInflater(context));
+            } catch (final RuntimeException e) {
+                // 与同步创建保持一致, 异常抛到主线程
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        throw e;
+                    }
+                });
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled) {
+                        onMenuItemCreatedListener.onCreated(menuItemView);
+                    }
+                }
+            });
+        }
+
+        /**
+         * 取消创建, 尚未开始时不再创建, 已创建时不再回调
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public interface OnMenuItemCreatedListener {
+
+        /**
+         * 创建完成回调, 主线程
+         *
+         * @param menuItemView 创建好的 item
+         */
+        void onCreated(MenuItemView menuItemView);
+    }
+
     private int getColor(int colorId) {
         return context.getResources().getColor(colorId);
     }
@@ -313,7 +991,7 @@ public class MenuItemBuilder {
     }
 
     private Drawable getDrawable(int resId) {
-        return context.getResources().getDrawable(resId);
+        return MenuDrawableCache.getDrawable(context, resId);
     }
 }
 
@@ -0,0 +1,68 @@
+package ysn.com.demo.bottommenulayout;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuItemDiff
+ * @Description 根据 item 的 key 计算新旧列表的对应关系, 不依赖 Android, 供 {@link BottomMenuLayout#setItems(List)} 使用
+ * @Date 2020/6/7
+ */
+final class MenuItemDiff {
+
+    /**
+     * 新增的 item(旧列表中没有对应项)
+     */
+    static final int NO_MATCH = -1;
+
+    private MenuItemDiff() {
+    }
+
+    /**
+     * 计算新列表每一项在旧列表中的索引
+     *
+     * @param oldKeys 旧列表的 key
+     * @param newKeys 新列表的 key
+     * @return 与 newKeys 等长的数组, 值为旧列表索引, 无对应项为 {@link #NO_MATCH}; key 重复时按出现顺序一一对应
+     */
+    static int[] match(List<String> oldKeys, List<String> newKeys) {
+        int newSize = newKeys.size();
+        int oldSize = oldKeys.size();
+        int[] result = new int[newSize];
+
+        // 前缀相同的部分直接对应, 大多数变更只涉及少量 item
+        int prefix = 0;
+        int min = Math.min(oldSize, newSize);
+        while (prefix < min && equals(oldKeys.get(prefix), newKeys.get(prefix))) {
+            result[prefix] = prefix;
+            prefix++;
+        }
+        if (prefix == newSize) {
+            return result;
+        }
+
+        Map<String, ArrayDeque<Integer>> oldIndexMap = new HashMap<>();
+        for (int i = prefix; i < oldSize; i++) {
+            String key = oldKeys.get(i);
+            ArrayDeque<Integer> indexes = oldIndexMap.get(key);
+            if (indexes == null) {
+                indexes = new ArrayDeque<>();
+                oldIndexMap.put(key, indexes);
+            }
+            indexes.add(i);
+        }
+
+        for (int i = prefix; i < newSize; i++) {
+            ArrayDeque<Integer> indexes = oldIndexMap.get(newKeys.get(i));
+            result[i] = indexes == null || indexes.isEmpty() ? NO_MATCH : indexes.poll();
+        }
+        return result;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
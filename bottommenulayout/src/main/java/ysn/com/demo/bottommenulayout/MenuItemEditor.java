@@ -0,0 +1,161 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.util.SparseArray;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuItemEditor
+ * @Description 批量修改 item 状态, 通过 {@link BottomMenuLayout#beginUpdate()} 获取, {@link #commit()} 时一次性应用,
+ * 同一位置的多次修改只保留最终结果, 整个菜单只触发一次 layout 及 invalidate
+ * @Date 2020/6/8
+ */
+public class MenuItemEditor {
+
+    private final BottomMenuLayout menuLayout;
+    private final SparseArray<PendingState> pendingStates = new SparseArray<>();
+    private boolean committed;
+
+    MenuItemEditor(BottomMenuLayout menuLayout) {
+        this.menuLayout = menuLayout;
+    }
+
+    /**
+     * 设置未读数
+     */
+    public MenuItemEditor setUnreadNum(int position, int unreadNum) {
+        PendingState state = obtain(position);
+        state.set(unreadNum <= 0 ? MenuState.BADGE_NONE : MenuState.BADGE_UNREAD, unreadNum, null);
+        return this;
+    }
+
+    /**
+     * 显示提示消息
+     */
+    public MenuItemEditor visibleMsg(int position, String msg) {
+        obtain(position).set(MenuState.BADGE_MSG, 0, msg);
+        return this;
+    }
+
+    /**
+     * 隐藏提示消息
+     */
+    public MenuItemEditor goneMsg(int position) {
+        obtain(position).gone(MenuState.BADGE_MSG);
+        return this;
+    }
+
+    /**
+     * 显示小红点
+     */
+    public MenuItemEditor visibleMsgPoint(int position) {
+        obtain(position).set(MenuState.BADGE_POINT, 0, null);
+        return this;
+    }
+
+    /**
+     * 隐藏小红点
+     */
+    public MenuItemEditor goneMsgPoint(int position) {
+        obtain(position).gone(MenuState.BADGE_POINT);
+        return this;
+    }
+
+    /**
+     * 提交修改
+     */
+    public void commit() {
+        if (committed) {
+            throw new IllegalStateException("MenuItemEditor 已提交");
+        }
+        committed = true;
+        menuLayout.applyUpdate(this);
+    }
+
+    /**
+     * 将所有修改应用到 item 上, 由 {@link BottomMenuLayout} 在屏蔽 requestLayout 期间调用
+     */
+    void apply() {
+        for (int i = 0, size = pendingStates.size(); i < size; i++) {
+            int position = pendingStates.keyAt(i);
+            if (position >= menuLayout.getItemCount()) {
+                continue;
+            }
+            pendingStates.valueAt(i).apply(menuLayout, position);
+        }
+    }
+
+    private PendingState obtain(int position) {
+        if (committed) {
+            throw new IllegalStateException("MenuItemEditor 已提交");
+        }
+        PendingState state = pendingStates.get(position);
+        if (state == null) {
+            state = new PendingState();
+            pendingStates.put(position, state);
+        }
+        return state;
+    }
+
+    /**
+     * 某个位置待应用的状态
+     * known: 本次修改中是否已确定最终显示的角标
+     * goneMsg、gonePoint: 未确定最终角标时需要隐藏的角标
+     */
+    private static class PendingState {
+
+        boolean known;
+        int kind;
+        int unreadNum;
+        String msg;
+        boolean goneMsg;
+        boolean gonePoint;
+
+        void set(int kind, int unreadNum, String msg) {
+            this.known = true;
+            this.kind = kind;
+            this.unreadNum = unreadNum;
+            this.msg = msg;
+            this.goneMsg = false;
+            this.gonePoint = false;
+        }
+
+        void gone(int kind) {
+            if (known) {
+                if (this.kind == kind) {
+                    set(MenuState.BADGE_NONE, 0, null);
+                }
+            } else if (kind == MenuState.BADGE_MSG) {
+                goneMsg = true;
+            } else {
+                gonePoint = true;
+            }
+        }
+
+        void apply(BottomMenuLayout menuLayout, int position) {
+            if (!known) {
+                if (goneMsg) {
+                    menuLayout.goneMsg(position);
+                }
+                if (gonePoint) {
+                    menuLayout.goneMsgPoint(position);
+                }
+                return;
+            }
+            switch (kind) {
+                case MenuState.BADGE_UNREAD:
+                    menuLayout.setUnreadNum(position, unreadNum);
+                    break;
+                case MenuState.BADGE_MSG:
+                    menuLayout.visibleMsg(position, msg);
+                    break;
+                case MenuState.BADGE_POINT:
+                    menuLayout.visibleMsgPoint(position);
+                    break;
+                default:
+                    // 未读数 <= 0 时隐藏所有角标
+                    menuLayout.setUnreadNum(position, 0);
+                    break;
+            }
+        }
+    }
+}
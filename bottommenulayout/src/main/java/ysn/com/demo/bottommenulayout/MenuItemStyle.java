@@ -0,0 +1,193 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuItemStyle
+ * @Description XML 中通过 style 声明的 item 样式(尺寸、颜色、角标、点击效果等), 按 style 及主题解析一次后共用, 创建后不可修改.
+ * 每个 item 只解析自身的文本、图标; Drawable 只保存 ConstantState, 每个 item 使用各自的实例
+ * @Date 2020/6/23
+ */
+public final class MenuItemStyle {
+
+    private static final Map<Resources.Theme, SparseArray<MenuItemStyle>> CACHE = new WeakHashMap<>();
+
+    /**
+     * 每个 item 单独解析的属性(已排序, 供 obtainStyledAttributes 使用)
+     */
+    static final int[] ITEM_ATTRS;
+    static final int ITEM_ATTR_ICON_NORMAL;
+    static final int ITEM_ATTR_ICON_SELECTED;
+    static final int ITEM_ATTR_TEXT;
+
+    static {
+        int[] attrs = {R.attr.miv_icon_normal, R.attr.miv_icon_selected, R.attr.miv_text};
+        Arrays.sort(attrs);
+        ITEM_ATTRS = attrs;
+        ITEM_ATTR_ICON_NORMAL = Arrays.binarySearch(attrs, R.attr.miv_icon_normal);
+        ITEM_ATTR_ICON_SELECTED = Arrays.binarySearch(attrs, R.attr.miv_icon_selected);
+        ITEM_ATTR_TEXT = Arrays.binarySearch(attrs, R.attr.miv_text);
+    }
+
+    final int iconWidth;
+    final int iconHeight;
+    final ColorStateList iconTint;
+    final boolean rasterizeIcon;
+
+    final int textSize;
+    final int textNormalColor;
+    final int textSelectedColor;
+
+    final int maxUnreadNum;
+    final int unreadTextSize;
+    final int unreadTextColor;
+    final Drawable.ConstantState unreadTextBg;
+
+    final int msgTextSize;
+    final int msgTextColor;
+    final Drawable.ConstantState msgTextBg;
+    final Drawable.ConstantState msgPointBg;
+
+    final boolean enabledClickDrawable;
+    final Drawable.ConstantState clickDrawable;
+
+    final int marginTop;
+    final int itemPadding;
+    final boolean flat;
+
+    private MenuItemStyle(MenuItemBuilder builder) {
+        iconWidth = builder.iconWidth;
+        iconHeight = builder.iconHeight;
+        iconTint = builder.iconTint;
+        rasterizeIcon = builder.rasterizeIcon;
+        textSize = builder.textSize;
+        textNormalColor = builder.textNormalColor;
+        textSelectedColor = builder.textSelectedColor;
+        maxUnreadNum = builder.maxUnreadNum;
+        unreadTextSize = builder.unreadTextSize;
+        unreadTextColor = builder.unreadTextColor;
+        unreadTextBg = getConstantState(builder.unreadTextBg);
+        msgTextSize = builder.msgTextSize;
+        msgTextColor = builder.msgTextColor;
+        msgTextBg = getConstantState(builder.msgTextBg);
+        msgPointBg = getConstantState(builder.msgPointBg);
+        enabledClickDrawable = builder.enabledClickDrawable;
+        clickDrawable = getConstantState(builder.clickDrawable);
+        marginTop = builder.marginTop;
+        itemPadding = builder.itemPadding;
+        flat = builder.flat;
+    }
+
+    /**
+     * 获取 item 的共用样式, 未通过 style 声明或直接在 item 上设置了样式属性时返回 null, 此时逐个 item 解析
+     */
+    static MenuItemStyle obtain(Context context, AttributeSet attrs) {
+        if (attrs == null) {
+            return null;
+        }
+        int styleResId = attrs.getStyleAttribute();
+        if (styleResId == 0 || hasInlineStyleAttrs(attrs)) {
+            return null;
+        }
+
+        Resources.Theme theme = context.getTheme();
+        synchronized (CACHE) {
+            SparseArray<MenuItemStyle> themeStyles = CACHE.get(theme);
+            MenuItemStyle style = themeStyles == null ? null : themeStyles.get(styleResId);
+            if (style != null) {
+                return style;
+            }
+        }
+
+        MenuItemBuilder builder = new MenuItemBuilder(context);
+        TypedArray typedArray = theme.obtainStyledAttributes(styleResId, R.styleable.MenuItemView);
+        MenuItemView.readStyleAttrs(context, typedArray, builder);
+        typedArray.recycle();
+        if (!canShare(builder)) {
+            return null;
+        }
+
+        MenuItemStyle style = new MenuItemStyle(builder);
+        synchronized (CACHE) {
+            SparseArray<MenuItemStyle> themeStyles = CACHE.get(theme);
+            if (themeStyles == null) {
+                themeStyles = new SparseArray<>();
+                CACHE.put(theme, themeStyles);
+            }
+            themeStyles.put(styleResId, style);
+        }
+        return style;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * item 上是否直接设置了样式属性(会覆盖 style 中的值)
+     */
+    private static boolean hasInlineStyleAttrs(AttributeSet attrs) {
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            int attr = attrs.getAttributeNameResource(i);
+            if (attr != 0 && Arrays.binarySearch(ITEM_ATTRS, attr) < 0 && contains(R.styleable.MenuItemView, attr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int item : array) {
+            if (item == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drawable 没有 ConstantState 时无法为每个 item 创建实例, 不共用
+     */
+    private static boolean canShare(MenuItemBuilder builder) {
+        return isShareable(builder.unreadTextBg) && isShareable(builder.msgTextBg)
+                && isShareable(builder.msgPointBg) && isShareable(builder.clickDrawable);
+    }
+
+    private static boolean isShareable(Drawable drawable) {
+        return drawable == null || drawable.getConstantState() != null;
+    }
+
+    private static Drawable.ConstantState getConstantState(Drawable drawable) {
+        return drawable == null ? null : drawable.getConstantState();
+    }
+
+    /**
+     * 为 item 创建 Drawable 实例
+     */
+    static Drawable newDrawable(Drawable.ConstantState constantState, Context context) {
+        if (constantState == null) {
+            return null;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return constantState.newDrawable(context.getResources(), context.getTheme());
+        }
+        return constantState.newDrawable(context.getResources());
+    }
+}
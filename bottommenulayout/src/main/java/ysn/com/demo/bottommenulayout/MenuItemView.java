@@ -2,19 +2,33 @@ package ysn.com.demo.bottommenulayout;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Build;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.Gravity;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewStub;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.Nullable;
+import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.tracing.Trace;
 
-import java.util.Locale;
+import java.lang.ref.WeakReference;
 
 /**
  * @Author yangsanning
@@ -24,8 +38,28 @@ import java.util.Locale;
  */
 public class MenuItemView extends LinearLayout {
 
+    /**
+     * 滑动过渡颜色的分段数
+     */
+    private static final int SELECTION_STEPS = 32;
+
+    /**
+     * 异步加载图标且未设置图标尺寸时的默认尺寸(dp)
+     */
+    static final int DEFAULT_ICON_SIZE = 24;
+
     private MenuItemBuilder builder;
 
+    /**
+     * 创建期间使用的 LayoutInflater, 为 null 时使用 Context 的 LayoutInflater
+     */
+    private LayoutInflater inflater;
+
+    /**
+     * 图标加载的批次, 放回复用池或重新绑定时递增, 之前发起的加载完成后不再替换图标
+     */
+    private int iconLoadGeneration;
+
     /**
      * 图标
      */
@@ -37,19 +71,61 @@ public class MenuItemView extends LinearLayout {
     private TextView textTextView;
 
     /**
-     * 未读数
+     * 未读数, 首次显示前为 null
      */
     private TextView unreadTextView;
+    private ViewStub unreadStub;
 
     /**
-     * 提示消息
+     * 提示消息, 首次显示前为 null
      */
     private TextView msgTextView;
+    private ViewStub msgStub;
 
     /**
-     * 红点
+     * 红点, 首次显示前为 null
      */
     private TextView msgPointTextView;
+    private ViewStub msgPointStub;
+
+    /**
+     * 扁平化模式下的绘制器, 非扁平化模式为 null
+     */
+    private FlatMenuItemRenderer flatRenderer;
+
+    /**
+     * 显示的图标: 单图标模式下为着色后的图标, 否则为默认图标与选中图标的 {@link CrossFadeDrawable}
+     */
+    private Drawable displayIcon;
+
+    /**
+     * 滑动过渡时使用的颜色表, 首次过渡时创建, 之后每帧不再创建对象
+     * textColorSteps: 文本颜色
+     * iconTintSteps: 单图标模式的着色, API 21 及以上为颜色过滤(过渡中覆盖着色, 每帧不再创建着色过滤), 以下为着色
+     * iconTintInTransition: 单图标模式是否处于过渡中
+     */
+    private ColorStateList[] textColorSteps;
+    private Object[] iconTintSteps;
+    private boolean iconTintInTransition;
+
+    /**
+     * 内存不足时双图标模式只保留当前显示的图标(builder 中可重新获取的未显示图标一并释放), 选中状态变化或滑动过渡时重新创建
+     */
+    private boolean iconTrimmed;
+
+    /**
+     * 当前已应用的角标, 用于跳过重复更新
+     * badgeKind: 角标类型
+     * badgeText: 角标文本(未读数、提示消息)
+     */
+    private int badgeKind = MenuState.BADGE_NONE;
+    private String badgeText;
+    private UnreadTextTable unreadTextTable;
+
+    /**
+     * 创建耗时, 仅在开启性能统计时记录, 加入菜单并上报后清零
+     */
+    private long inflateTimeNanos;
 
     public MenuItemView(Context context) {
         super(context);
@@ -61,21 +137,43 @@ public class MenuItemView extends LinearLayout {
 
     public MenuItemView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        builder = new MenuItemBuilder(context);
+        MenuItemStyle style = MenuItemStyle.obtain(context, attrs);
+        builder = style != null ? new MenuItemBuilder(context, style) : new MenuItemBuilder(context);
 
         initAttrs(context, attrs);
         initView(context);
     }
 
     public void initAttrs(Context context, AttributeSet attrs) {
+        if (builder.style != null) {
+            // 样式已共用, 只解析 item 自身的文本、图标
+            TypedArray typedArray = context.obtainStyledAttributes(attrs, MenuItemStyle.ITEM_ATTRS);
+            builder.normalIcon = getDrawable(context, typedArray, MenuItemStyle.ITEM_ATTR_ICON_NORMAL);
+            builder.selectedIcon = getDrawable(context, typedArray, MenuItemStyle.ITEM_ATTR_ICON_SELECTED);
+            builder.text = typedArray.getString(MenuItemStyle.ITEM_ATTR_TEXT);
+            typedArray.recycle();
+            return;
+        }
+
         TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.MenuItemView);
 
-        builder.normalIcon = typedArray.getDrawable(R.styleable.MenuItemView_miv_icon_normal);
-        builder.selectedIcon = typedArray.getDrawable(R.styleable.MenuItemView_miv_icon_selected);
+        builder.normalIcon = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_icon_normal);
+        builder.selectedIcon = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_icon_selected);
+        builder.text = typedArray.getString(R.styleable.MenuItemView_miv_text);
+        readStyleAttrs(context, typedArray, builder);
+
+        typedArray.recycle();
+    }
+
+    /**
+     * 解析样式属性(除文本、图标以外的属性), 供单个 item 及 {@link MenuItemStyle} 使用
+     */
+    static void readStyleAttrs(Context context, TypedArray typedArray, MenuItemBuilder builder) {
         builder.iconWidth = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_icon_width, 0);
         builder.iconHeight = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_icon_height, 0);
+        builder.iconTint = typedArray.getColorStateList(R.styleable.MenuItemView_miv_icon_tint);
+        builder.rasterizeIcon = typedArray.getBoolean(R.styleable.MenuItemView_miv_icon_rasterize, builder.rasterizeIcon);
 
-        builder.text = typedArray.getString(R.styleable.MenuItemView_miv_text);
         builder.textSize = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_text_size, builder.textSize);
         builder.textNormalColor = typedArray.getColor(R.styleable.MenuItemView_miv_text_color_normal, builder.textNormalColor);
         builder.textSelectedColor = typedArray.getColor(R.styleable.MenuItemView_miv_text_color_selected, builder.textSelectedColor);
@@ -83,75 +181,356 @@ public class MenuItemView extends LinearLayout {
         builder.maxUnreadNum = typedArray.getInteger(R.styleable.MenuItemView_miv_max_unread_num, builder.maxUnreadNum);
         builder.unreadTextSize = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_unread_text_size, builder.unreadTextSize);
         builder.unreadTextColor = typedArray.getColor(R.styleable.MenuItemView_miv_unread_text_color, builder.unreadTextColor);
-        builder.unreadTextBg = typedArray.getDrawable(R.styleable.MenuItemView_miv_unread_text_bg);
+        builder.unreadTextBg = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_unread_text_bg);
 
         builder.msgTextSize = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_msg_text_size, builder.msgTextSize);
         builder.msgTextColor = typedArray.getColor(R.styleable.MenuItemView_miv_msg_text_color, builder.msgTextColor);
-        builder.msgTextBg = typedArray.getDrawable(R.styleable.MenuItemView_miv_msg_text_bg);
-        builder.msgPointBg = typedArray.getDrawable(R.styleable.MenuItemView_miv_msg_point_bg);
+        builder.msgTextBg = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_msg_text_bg);
+        builder.msgPointBg = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_msg_point_bg);
 
         builder.enabledClickDrawable = typedArray.getBoolean(R.styleable.MenuItemView_miv_enabled_click_drawable, builder.enabledClickDrawable);
-        builder.clickDrawable = typedArray.getDrawable(R.styleable.MenuItemView_miv_click_drawable);
+        builder.clickDrawable = getDrawable(context, typedArray, R.styleable.MenuItemView_miv_click_drawable);
 
         builder.marginTop = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_item_margin_top, builder.marginTop);
         builder.itemPadding = typedArray.getDimensionPixelSize(R.styleable.MenuItemView_miv_item_padding, 0);
 
-        typedArray.recycle();
+        builder.flat = typedArray.getBoolean(R.styleable.MenuItemView_miv_flat, builder.flat);
+    }
+
+    /**
+     * 资源引用的 Drawable 通过 {@link MenuDrawableCache} 获取, 多个 item 共用同一份 ConstantState
+     */
+    private static Drawable getDrawable(Context context, TypedArray typedArray, int index) {
+        int resId = typedArray.getResourceId(index, 0);
+        if (resId != 0) {
+            return MenuDrawableCache.getDrawable(context, resId);
+        }
+        return typedArray.getDrawable(index);
     }
 
     public void initView(Context context) {
+        long startNanos = MenuMetrics.isEnabled() ? System.nanoTime() : 0;
+        Trace.beginSection(MenuMetrics.TRACE_INFLATE);
+        try {
+            inflateView(context);
+        } finally {
+            Trace.endSection();
+        }
+        if (startNanos != 0) {
+            inflateTimeNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    private void inflateView(Context context) {
+        builder.applyPlaceholderIcons();
         builder.checkNotNull();
+        prepareDisplayIcon();
 
-        View view = View.inflate(context, R.layout.view_menu_item, null);
-        if (builder.itemPadding != 0) {
-            view.setPadding(builder.itemPadding, builder.itemPadding, builder.itemPadding, builder.itemPadding);
+        if (builder.flat) {
+            initFlatView();
+            return;
         }
+
+        View view = inflater != null ? inflater.inflate(R.layout.view_menu_item, null)
+                : View.inflate(context, R.layout.view_menu_item, null);
         iconImageView = view.findViewById(R.id.menu_item_view_icon);
         textTextView = view.findViewById(R.id.menu_item_view_text);
-        unreadTextView = view.findViewById(R.id.menu_item_view_unread_num);
-        msgTextView = view.findViewById(R.id.menu_item_view_msg);
-        msgPointTextView = view.findViewById(R.id.menu_item_view_msg_point);
+        unreadStub = view.findViewById(R.id.menu_item_view_unread_num_stub);
+        msgStub = view.findViewById(R.id.menu_item_view_msg_stub);
+        msgPointStub = view.findViewById(R.id.menu_item_view_msg_point_stub);
 
         setOrientation(VERTICAL);
         setGravity(Gravity.CENTER);
 
-        iconImageView.setImageDrawable(builder.normalIcon);
+        applyBuilder(view, false);
+
+        addView(view);
+        loadIcons();
+    }
+
+    /**
+     * 将 builder 的配置应用到已创建的子 View
+     *
+     * @param rebind 是否为重新绑定, 重新绑定时需要还原上一次的配置
+     */
+    private void applyBuilder(View view, boolean rebind) {
+        if (builder.itemPadding != 0 || rebind) {
+            view.setPadding(builder.itemPadding, builder.itemPadding, builder.itemPadding, builder.itemPadding);
+        }
+
+        iconImageView.setImageDrawable(displayIcon);
 
-        if (builder.iconWidth != 0 && builder.iconHeight != 0) {
+        if ((builder.iconWidth != 0 && builder.iconHeight != 0) || rebind) {
+            boolean hasSize = builder.iconWidth != 0 && builder.iconHeight != 0;
             FrameLayout.LayoutParams imageLayoutParams = (FrameLayout.LayoutParams) iconImageView.getLayoutParams();
-            imageLayoutParams.width = builder.iconWidth;
-            imageLayoutParams.height = builder.iconHeight;
+            imageLayoutParams.width = hasSize ? builder.iconWidth : LayoutParams.WRAP_CONTENT;
+            imageLayoutParams.height = hasSize ? builder.iconHeight : LayoutParams.WRAP_CONTENT;
             iconImageView.setLayoutParams(imageLayoutParams);
         }
 
         textTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.textSize);
         textTextView.setTextColor(builder.textNormalColor);
-        textTextView.setText(builder.text);
+        if (!MenuLabelPrecomputer.apply(textTextView, builder.precomputedLabel)) {
+            textTextView.setText(builder.text);
+        }
         LinearLayout.LayoutParams textLayoutParams = (LayoutParams) textTextView.getLayoutParams();
         textLayoutParams.topMargin = builder.marginTop;
         textTextView.setLayoutParams(textLayoutParams);
 
-        unreadTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.unreadTextSize);
-        unreadTextView.setTextColor(builder.unreadTextColor);
-        unreadTextView.setBackground(builder.unreadTextBg);
+        if (builder.enabledClickDrawable) {
+            setBackground(builder.clickDrawable);
+        }
+    }
+
+    /**
+     * 重新绑定 item 数据, 用于回收复用(如 {@link OverflowMenuLayout}、{@link MenuItemViewPool}), 角标清空, 选中状态不变.
+     * 新旧均为非扁平化模式时复用已创建的子 View, 否则重新创建
+     */
+    public MenuItemView bind(MenuItemBuilder builder) {
+        if (this.builder == builder) {
+            return this;
+        }
+        MenuItemBuilder oldBuilder = this.builder;
+        this.builder = builder;
+        iconLoadGeneration++;
+        if (oldBuilder != null && oldBuilder.enabledClickDrawable && getBackground() == oldBuilder.clickDrawable) {
+            setBackground(null);
+        }
+        textColorSteps = null;
+        unreadTextTable = null;
+        applyBadge(MenuState.BADGE_NONE, null);
+
+        if (builder.flat || flatRenderer != null || iconImageView == null) {
+            removeAllViews();
+            setContentDescription(null);
+            iconImageView = null;
+            textTextView = null;
+            unreadTextView = null;
+            msgTextView = null;
+            msgPointTextView = null;
+            flatRenderer = null;
+            setWillNotDraw(true);
+            initView(getContext());
+            return this;
+        }
+
+        builder.applyPlaceholderIcons();
+        builder.checkNotNull();
+        prepareDisplayIcon();
+        applyBuilder(getChildAt(0), true);
+        restyleBadgeViews();
+        loadIcons();
+        refreshItem();
+        return this;
+    }
+
+    /**
+     * 放入 {@link MenuItemViewPool} 前调用: 清空角标、选中状态, 释放 builder 及图标, 保留已创建的子 View 供重新绑定
+     */
+    void recycle() {
+        if (builder == null) {
+            return;
+        }
+        if (builder.enabledClickDrawable && getBackground() == builder.clickDrawable) {
+            setBackground(null);
+        }
+        applyBadge(MenuState.BADGE_NONE, null);
+        setSelected(false);
+        setOnClickListener(null);
+        if (flatRenderer != null) {
+            flatRenderer = null;
+            setWillNotDraw(true);
+            setContentDescription(null);
+        }
+        if (iconImageView != null) {
+            iconImageView.setImageDrawable(null);
+        }
+        displayIcon = null;
+        textColorSteps = null;
+        iconTintSteps = null;
+        iconTintInTransition = false;
+        iconTrimmed = false;
+        unreadTextTable = null;
+        inflateTimeNanos = 0;
+        iconLoadGeneration++;
+        builder = null;
+    }
 
-        msgTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.msgTextSize);
-        msgTextView.setTextColor(builder.msgTextColor);
-        msgTextView.setBackground(builder.msgTextBg);
+    MenuItemBuilder getBuilder() {
+        return builder;
+    }
 
-        msgPointTextView.setBackground(builder.msgPointBg);
+    /**
+     * 已创建的角标 View 按新的 builder 重新设置样式
+     */
+    private void restyleBadgeViews() {
+        if (unreadTextView != null) {
+            unreadTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.unreadTextSize);
+            unreadTextView.setTextColor(builder.unreadTextColor);
+            unreadTextView.setBackground(builder.getUnreadTextBg());
+        }
+        if (msgTextView != null) {
+            msgTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.msgTextSize);
+            msgTextView.setTextColor(builder.msgTextColor);
+            msgTextView.setBackground(builder.getMsgTextBg());
+        }
+        if (msgPointTextView != null) {
+            msgPointTextView.setBackground(builder.getMsgPointBg());
+        }
+    }
+
+    /**
+     * 未读数 View, 首次显示时才创建
+     */
+    private TextView getUnreadTextView() {
+        if (unreadTextView == null) {
+            unreadTextView = (TextView) unreadStub.inflate();
+            unreadStub = null;
+            unreadTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.unreadTextSize);
+            unreadTextView.setTextColor(builder.unreadTextColor);
+            unreadTextView.setBackground(builder.getUnreadTextBg());
+        } else if (unreadTextView.getBackground() == null) {
+            // 内存不足时已释放
+            unreadTextView.setBackground(builder.getUnreadTextBg());
+        }
+        return unreadTextView;
+    }
 
+    /**
+     * 提示消息 View, 首次显示时才创建
+     */
+    private TextView getMsgTextView() {
+        if (msgTextView == null) {
+            msgTextView = (TextView) msgStub.inflate();
+            msgStub = null;
+            msgTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, builder.msgTextSize);
+            msgTextView.setTextColor(builder.msgTextColor);
+            msgTextView.setBackground(builder.getMsgTextBg());
+        } else if (msgTextView.getBackground() == null) {
+            // 内存不足时已释放
+            msgTextView.setBackground(builder.getMsgTextBg());
+        }
+        return msgTextView;
+    }
+
+    /**
+     * 小红点 View, 首次显示时才创建
+     */
+    private TextView getMsgPointTextView() {
+        if (msgPointTextView == null) {
+            msgPointTextView = (TextView) msgPointStub.inflate();
+            msgPointStub = null;
+            msgPointTextView.setBackground(builder.getMsgPointBg());
+        } else if (msgPointTextView.getBackground() == null) {
+            // 内存不足时已释放
+            msgPointTextView.setBackground(builder.getMsgPointBg());
+        }
+        return msgPointTextView;
+    }
+
+    /**
+     * 扁平化模式: 不再 inflate 子 View, 所有内容由 {@link FlatMenuItemRenderer} 直接绘制
+     */
+    private void initFlatView() {
+        flatRenderer = new FlatMenuItemRenderer(this, builder);
+        setWillNotDraw(false);
+        updateFlatContentDescription();
         if (builder.enabledClickDrawable) {
             setBackground(builder.clickDrawable);
         }
+        loadIcons();
+    }
 
-        addView(view);
+    /**
+     * 扁平化模式下文本及角标直接绘制, 没有子 View 提供给无障碍服务, 通过 contentDescription 描述文本及角标
+     */
+    private void updateFlatContentDescription() {
+        String text = builder.text != null ? builder.text : "";
+        switch (badgeKind) {
+            case MenuState.BADGE_UNREAD:
+                setContentDescription(getResources().getString(R.string.menu_item_view_unread_description, text, badgeText));
+                break;
+            case MenuState.BADGE_MSG:
+                setContentDescription(getResources().getString(R.string.menu_item_view_msg_description, text, badgeText));
+                break;
+            case MenuState.BADGE_POINT:
+                setContentDescription(getResources().getString(R.string.menu_item_view_point_description, text));
+                break;
+            default:
+                setContentDescription(builder.text);
+                break;
+        }
+    }
+
+    /**
+     * 移除点击背景, 由 {@link BottomMenuLayout} 统一绘制点击效果
+     */
+    void removeClickDrawable() {
+        if (builder.enabledClickDrawable && getBackground() == builder.clickDrawable) {
+            setBackground(null);
+        }
+    }
+
+    /**
+     * 恢复点击背景
+     */
+    void restoreClickDrawable() {
+        if (builder.enabledClickDrawable && getBackground() == null) {
+            setBackground(builder.clickDrawable);
+        }
+    }
+
+    /**
+     * 是否为扁平化模式
+     */
+    public boolean isFlat() {
+        return flatRenderer != null;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (flatRenderer == null) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        int width = flatRenderer.getContentWidth() + getPaddingLeft() + getPaddingRight();
+        int height = flatRenderer.getContentHeight() + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
     }
 
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (flatRenderer == null) {
+            super.onLayout(changed, l, t, r, b);
+            return;
+        }
+        flatRenderer.layout(r - l, b - t);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (flatRenderer != null) {
+            flatRenderer.draw(canvas);
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return (flatRenderer != null && flatRenderer.verifyDrawable(who)) || super.verifyDrawable(who);
+    }
+
+    /**
+     * 扁平化模式下返回 null
+     */
     public ImageView getIconImageView() {
         return iconImageView;
     }
 
+    /**
+     * 扁平化模式下返回 null
+     */
     public TextView getTextTextView() {
         return textTextView;
     }
@@ -161,15 +540,15 @@ public class MenuItemView extends LinearLayout {
      */
     public void setNormalIcon(int resId) {
         builder.normalIcon(resId);
-        refreshItem();
+        onIconChanged();
     }
 
     /**
      * 设置默认图标
      */
     public void setNormalIcon(Drawable normalIcon) {
-        builder.normalIcon = normalIcon;
-        refreshItem();
+        builder.normalIcon(normalIcon);
+        onIconChanged();
     }
 
     /**
@@ -177,14 +556,230 @@ public class MenuItemView extends LinearLayout {
      */
     public void setSelectedIcon(int resId) {
         builder.selectedIcon(resId);
-        refreshItem();
+        onIconChanged();
     }
 
     /**
      * 设置选中图标
      */
     public void setSelectedIcon(Drawable selectedIcon) {
-        builder.selectedIcon = selectedIcon;
+        builder.selectedIcon(selectedIcon);
+        onIconChanged();
+    }
+
+    /**
+     * 准备显示的图标, 切换选中时均无需替换图标
+     * 单图标模式: 只有一个图标, 通过着色或 StateListDrawable 跟随 selected 状态变化
+     * 双图标模式: 默认图标与选中图标通过 {@link CrossFadeDrawable} 切换透明度
+     */
+    private void prepareDisplayIcon() {
+        iconTintSteps = null;
+        iconTintInTransition = false;
+        iconTrimmed = false;
+        boolean loadNormal = builder.normalIconReleased && builder.normalIconUri != null;
+        boolean loadSelected = builder.selectedIconReleased && builder.selectedIconUri != null;
+        builder.reloadIcons();
+        if (builder.isSingleIcon()) {
+            Drawable icon = rasterizeIcon(builder.normalIcon);
+            if (builder.iconTint != null) {
+                icon = DrawableCompat.wrap(icon.mutate());
+                DrawableCompat.setTintList(icon, builder.iconTint);
+            }
+            displayIcon = icon;
+            if (flatRenderer != null) {
+                displayIcon.setState(getDrawableState());
+            }
+        } else {
+            CrossFadeDrawable crossFadeDrawable = new CrossFadeDrawable(rasterizeIcon(builder.normalIcon), rasterizeIcon(builder.selectedIcon));
+            crossFadeDrawable.setFraction(isSelected() ? 1f : 0f);
+            displayIcon = crossFadeDrawable;
+        }
+        if (loadNormal || loadSelected) {
+            loadIcons(loadNormal, loadSelected);
+        }
+    }
+
+    /**
+     * 开启光栅化时按显示尺寸获取光栅化后的图标
+     */
+    private Drawable rasterizeIcon(Drawable icon) {
+        if (!builder.rasterizeIcon || icon == null) {
+            return icon;
+        }
+        boolean hasSize = builder.iconWidth != 0 && builder.iconHeight != 0;
+        int width = hasSize ? builder.iconWidth : icon.getIntrinsicWidth();
+        int height = hasSize ? builder.iconHeight : icon.getIntrinsicHeight();
+        return MenuIconRasterCache.rasterize(getResources(), icon, width, height);
+    }
+
+    /**
+     * 获取显示的图标
+     */
+    Drawable getDisplayIcon() {
+        return displayIcon;
+    }
+
+    /**
+     * 设置选中程度, 用于滑动时在默认与选中状态之间过渡, 只会 invalidate, 不会 requestLayout
+     *
+     * @param fraction 0 为默认状态, 1 为选中状态
+     */
+    public void setSelectionFraction(float fraction) {
+        restoreTrimmedIcon();
+        fraction = Math.max(0f, Math.min(1f, fraction));
+        int step = Math.round(fraction * SELECTION_STEPS);
+
+        if (flatRenderer != null) {
+            flatRenderer.setTextColor(blendColor(builder.textNormalColor, builder.textSelectedColor, fraction));
+        } else {
+            if (textColorSteps == null) {
+                textColorSteps = createColorSteps(builder.textNormalColor, builder.textSelectedColor);
+            }
+            if (textTextView.getTextColors() != textColorSteps[step]) {
+                textTextView.setTextColor(textColorSteps[step]);
+            }
+        }
+
+        if (displayIcon instanceof CrossFadeDrawable) {
+            ((CrossFadeDrawable) displayIcon).setFraction(fraction);
+        } else if (builder.iconTint != null) {
+            if (iconTintSteps == null) {
+                int normalColor = builder.iconTint.getDefaultColor();
+                int selectedColor = builder.iconTint.getColorForState(SELECTED_STATE_SET, normalColor);
+                iconTintSteps = createTintSteps(normalColor, selectedColor);
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                displayIcon.setColorFilter((ColorFilter) iconTintSteps[step]);
+            } else {
+                // 低版本的着色本身由颜色过滤实现, 不能叠加
+                DrawableCompat.setTintList(displayIcon, (ColorStateList) iconTintSteps[step]);
+            }
+            iconTintInTransition = true;
+        }
+    }
+
+    private static Object[] createTintSteps(int startColor, int endColor) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return createColorSteps(startColor, endColor);
+        }
+        ColorFilter[] steps = new ColorFilter[SELECTION_STEPS + 1];
+        for (int i = 0; i <= SELECTION_STEPS; i++) {
+            steps[i] = new PorterDuffColorFilter(blendColor(startColor, endColor, (float) i / SELECTION_STEPS), PorterDuff.Mode.SRC_IN);
+        }
+        return steps;
+    }
+
+    private static ColorStateList[] createColorSteps(int startColor, int endColor) {
+        ColorStateList[] steps = new ColorStateList[SELECTION_STEPS + 1];
+        for (int i = 0; i <= SELECTION_STEPS; i++) {
+            steps[i] = ColorStateList.valueOf(blendColor(startColor, endColor, (float) i / SELECTION_STEPS));
+        }
+        return steps;
+    }
+
+    private static int blendColor(int startColor, int endColor, float fraction) {
+        int a = (int) (Color.alpha(startColor) + (Color.alpha(endColor) - Color.alpha(startColor)) * fraction);
+        int r = (int) (Color.red(startColor) + (Color.red(endColor) - Color.red(startColor)) * fraction);
+        int g = (int) (Color.green(startColor) + (Color.green(endColor) - Color.green(startColor)) * fraction);
+        int b = (int) (Color.blue(startColor) + (Color.blue(endColor) - Color.blue(startColor)) * fraction);
+        return Color.argb(a, r, g, b);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        // 扁平化模式下单图标需要跟随 View 的状态, 非扁平化模式由 ImageView 处理
+        if (flatRenderer != null && displayIcon != null && displayIcon.isStateful() && displayIcon.setState(getDrawableState())) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 异步加载通过文件、Uri 设置的图标, 加载完成时图标来源未变化才替换占位图
+     */
+    private void loadIcons() {
+        loadIcons(true, true);
+    }
+
+    private void loadIcons(boolean loadNormal, boolean loadSelected) {
+        if (builder.normalIconUri == null && builder.selectedIconUri == null) {
+            return;
+        }
+        int defaultSize = (int) (DEFAULT_ICON_SIZE * getResources().getDisplayMetrics().density + 0.5f);
+        boolean hasSize = builder.iconWidth != 0 && builder.iconHeight != 0;
+        int width = hasSize ? builder.iconWidth : defaultSize;
+        int height = hasSize ? builder.iconHeight : defaultSize;
+        final WeakReference<MenuItemView> viewReference = new WeakReference<>(this);
+        final int generation = iconLoadGeneration;
+
+        final Uri normalIconUri = builder.normalIconUri;
+        if (loadNormal && normalIconUri != null) {
+            MenuIconLoader.load(getContext(), normalIconUri, width, height, new MenuIconLoader.OnIconLoadedListener() {
+                @Override
+                public void onIconLoaded(BitmapDrawable icon) {
+                    MenuItemView view = viewReference.get();
+                    if (view != null && view.isLoading(generation) && normalIconUri.equals(view.builder.normalIconUri)) {
+                        view.builder.normalIcon = icon;
+                        view.builder.normalIconReleased = false;
+                        view.onIconChanged();
+                    }
+                }
+
+                @Override
+                public void onIconFailed() {
+                    MenuItemView view = viewReference.get();
+                    if (view != null && view.isLoading(generation) && normalIconUri.equals(view.builder.normalIconUri)
+                            && view.builder.errorIcon != null) {
+                        view.builder.normalIcon = view.builder.createErrorIcon();
+                        view.builder.normalIconReleased = false;
+                        view.onIconChanged();
+                    }
+                }
+            });
+        }
+
+        final Uri selectedIconUri = builder.selectedIconUri;
+        if (loadSelected && selectedIconUri != null) {
+            MenuIconLoader.load(getContext(), selectedIconUri, width, height, new MenuIconLoader.OnIconLoadedListener() {
+                @Override
+                public void onIconLoaded(BitmapDrawable icon) {
+                    MenuItemView view = viewReference.get();
+                    if (view != null && view.isLoading(generation) && selectedIconUri.equals(view.builder.selectedIconUri)) {
+                        view.builder.selectedIcon = icon;
+                        view.builder.selectedIconReleased = false;
+                        view.onIconChanged();
+                    }
+                }
+
+                @Override
+                public void onIconFailed() {
+                    MenuItemView view = viewReference.get();
+                    if (view != null && view.isLoading(generation) && selectedIconUri.equals(view.builder.selectedIconUri)
+                            && view.builder.errorIcon != null) {
+                        view.builder.selectedIcon = view.builder.createErrorIcon();
+                        view.builder.selectedIconReleased = false;
+                        view.onIconChanged();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 加载完成时 item 是否仍显示发起加载时的 builder(未放回复用池、未重新绑定)
+     */
+    private boolean isLoading(int generation) {
+        return builder != null && iconLoadGeneration == generation;
+    }
+
+    private void onIconChanged() {
+        prepareDisplayIcon();
+        if (flatRenderer != null) {
+            // 扁平化模式下图标尺寸可能变化, 需要重新测量
+            flatRenderer.setIconCallback(this);
+            requestLayout();
+            invalidate();
+        }
         refreshItem();
     }
 
@@ -192,16 +787,101 @@ public class MenuItemView extends LinearLayout {
      * 刷新Item
      */
     public void refreshItem(boolean isSelected) {
+        if (isSelected != isSelected()) {
+            restoreTrimmedIcon();
+        }
         setSelected(isSelected);
         refreshItem();
     }
 
     /**
-     * 刷新Item
+     * 刷新Item, 图标及文字颜色未变化时不做任何操作
      */
     public void refreshItem() {
-        iconImageView.setImageDrawable(isSelected() ? builder.selectedIcon : builder.normalIcon);
-        textTextView.setTextColor(isSelected() ? builder.textSelectedColor : builder.textNormalColor);
+        if (displayIcon instanceof CrossFadeDrawable) {
+            ((CrossFadeDrawable) displayIcon).setFraction(isSelected() ? 1f : 0f);
+        } else if (iconTintInTransition) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                displayIcon.setColorFilter(null);
+            } else {
+                DrawableCompat.setTintList(displayIcon, builder.iconTint);
+            }
+            iconTintInTransition = false;
+        }
+        if (flatRenderer != null) {
+            flatRenderer.setIconCallback(this);
+            if (flatRenderer.setSelected(isSelected())) {
+                invalidate();
+            }
+            return;
+        }
+        if (iconImageView.getDrawable() != displayIcon) {
+            iconImageView.setImageDrawable(displayIcon);
+        }
+        int textColor = isSelected() ? builder.textSelectedColor : builder.textNormalColor;
+        if (textTextView.getCurrentTextColor() != textColor || textTextView.getTextColors().isStateful()) {
+            textTextView.setTextColor(textColor);
+        }
+    }
+
+    /**
+     * 内存不足时释放未显示的资源, 需要时重新创建:
+     * 双图标模式下未显示的图标, 包括光栅化的副本及 builder 持有的图标(资源图标重新获取, Uri 图标重新加载, 直接设置的 Drawable 无法重新获取, 保留);
+     * 未显示的角标背景
+     */
+    void trimMemory() {
+        if (builder == null) {
+            return;
+        }
+        if (displayIcon instanceof CrossFadeDrawable) {
+            CrossFadeDrawable crossFadeDrawable = (CrossFadeDrawable) displayIcon;
+            // 滑动过渡中两个图标均在显示
+            if (crossFadeDrawable.getFraction() == (isSelected() ? 1f : 0f)) {
+                Drawable icon = isSelected() ? crossFadeDrawable.getSelectedDrawable() : crossFadeDrawable.getNormalDrawable();
+                icon.setCallback(null);
+                displayIcon = icon;
+                iconTrimmed = true;
+                builder.releaseIcon(!isSelected());
+                applyDisplayIcon();
+            }
+        }
+
+        if (unreadTextView != null && badgeKind != MenuState.BADGE_UNREAD) {
+            unreadTextView.setBackground(null);
+        }
+        if (msgTextView != null && badgeKind != MenuState.BADGE_MSG) {
+            msgTextView.setBackground(null);
+        }
+        if (msgPointTextView != null && badgeKind != MenuState.BADGE_POINT) {
+            msgPointTextView.setBackground(null);
+        }
+        builder.releaseBadgeBgs(badgeKind);
+    }
+
+    /**
+     * 重新创建 {@link #trimMemory()} 释放的图标
+     */
+    private void restoreTrimmedIcon() {
+        if (iconTrimmed) {
+            prepareDisplayIcon();
+            applyDisplayIcon();
+        }
+    }
+
+    private void applyDisplayIcon() {
+        if (flatRenderer != null) {
+            flatRenderer.setIconCallback(this);
+            invalidate();
+        } else {
+            iconImageView.setImageDrawable(displayIcon);
+        }
+    }
+
+    /**
+     * 获取唯一标识
+     */
+    public String getKey() {
+        return builder.getKey();
     }
 
     /**
@@ -216,19 +896,17 @@ public class MenuItemView extends LinearLayout {
      */
     public void setMaxUnreadNum(int maxUnreadNum) {
         this.builder.maxUnreadNum = maxUnreadNum;
+        this.unreadTextTable = null;
     }
 
     /**
      * 设置未读数
      */
     public void setUnreadNum(int unreadNum) {
-        setTextViewVisible(unreadTextView);
         if (unreadNum <= 0) {
-            unreadTextView.setVisibility(GONE);
-        } else if (unreadNum <= builder.maxUnreadNum) {
-            unreadTextView.setText(String.valueOf(unreadNum));
+            applyBadge(MenuState.BADGE_NONE, null);
         } else {
-            unreadTextView.setText(String.format(Locale.CHINA, "%d+", builder.maxUnreadNum));
+            applyBadge(MenuState.BADGE_UNREAD, getUnreadTextTable().get(unreadNum));
         }
     }
 
@@ -236,39 +914,121 @@ public class MenuItemView extends LinearLayout {
      * 显示提示消息
      */
     public void visibleMsg(String msg) {
-        setTextViewVisible(msgTextView);
-        msgTextView.setText(msg);
+        applyBadge(MenuState.BADGE_MSG, msg);
     }
 
     /**
      * 隐藏提示消息
      */
     public void goneMsg() {
-        msgTextView.setVisibility(GONE);
+        if (badgeKind == MenuState.BADGE_MSG) {
+            applyBadge(MenuState.BADGE_NONE, null);
+        }
     }
 
     /**
      * 显示小红点
      */
     public void visibleMsgPoint() {
-        setTextViewVisible(msgPointTextView);
+        applyBadge(MenuState.BADGE_POINT, null);
     }
 
     /**
      * 隐藏小红点
      */
     public void goneMsgPoint() {
-        msgPointTextView.setVisibility(GONE);
+        if (badgeKind == MenuState.BADGE_POINT) {
+            applyBadge(MenuState.BADGE_NONE, null);
+        }
+    }
+
+    private UnreadTextTable getUnreadTextTable() {
+        if (unreadTextTable == null) {
+            unreadTextTable = UnreadTextTable.of(builder.maxUnreadNum);
+        }
+        return unreadTextTable;
     }
 
     /**
-     * 未读、消息、小红点仅能显示一个
+     * 应用角标, 与当前显示一致时不做任何操作
      */
-    private void setTextViewVisible(TextView textView) {
-        unreadTextView.setVisibility(GONE);
-        msgTextView.setVisibility(GONE);
-        msgPointTextView.setVisibility(GONE);
-        textView.setVisibility(VISIBLE);
+    private void applyBadge(int kind, String text) {
+        if (kind == badgeKind && TextUtils.equals(text, badgeText)) {
+            return;
+        }
+        badgeKind = kind;
+        badgeText = text;
+
+        if (flatRenderer != null) {
+            switch (kind) {
+                case MenuState.BADGE_UNREAD:
+                    flatRenderer.showUnread(text);
+                    break;
+                case MenuState.BADGE_MSG:
+                    flatRenderer.showMsg(text);
+                    break;
+                case MenuState.BADGE_POINT:
+                    flatRenderer.showMsgPoint();
+                    break;
+                default:
+                    flatRenderer.hideAllBadge();
+                    break;
+            }
+            updateFlatContentDescription();
+            return;
+        }
+
+        switch (kind) {
+            case MenuState.BADGE_UNREAD:
+                setTextIfChanged(getUnreadTextView(), text);
+                break;
+            case MenuState.BADGE_MSG:
+                setTextIfChanged(getMsgTextView(), text);
+                break;
+            case MenuState.BADGE_POINT:
+                getMsgPointTextView();
+                break;
+            default:
+                break;
+        }
+        setBadgeViewVisible(kind);
+    }
+
+    private void setTextIfChanged(TextView textView, String text) {
+        if (!TextUtils.equals(textView.getText(), text)) {
+            textView.setText(text);
+        }
+    }
+
+    /**
+     * 未读、消息、小红点仅能显示一个, 未创建的角标 View 无需处理
+     */
+    private void setBadgeViewVisible(int kind) {
+        if (unreadTextView != null) {
+            setVisibleIfChanged(unreadTextView, kind == MenuState.BADGE_UNREAD);
+        }
+        if (msgTextView != null) {
+            setVisibleIfChanged(msgTextView, kind == MenuState.BADGE_MSG);
+        }
+        if (msgPointTextView != null) {
+            setVisibleIfChanged(msgPointTextView, kind == MenuState.BADGE_POINT);
+        }
+    }
+
+    private void setVisibleIfChanged(View view, boolean visible) {
+        int visibility = visible ? VISIBLE : GONE;
+        if (view.getVisibility() != visibility) {
+            view.setVisibility(visibility);
+        }
+    }
+
+    /**
+     * 获取并清除创建耗时, 未记录时返回 0
+     */
+    long takeInflateTimeNanos() {
+        long timeNanos = inflateTimeNanos;
+        inflateTimeNanos = 0;
+        return timeNanos;
     }
 
     public MenuItemView create(MenuItemBuilder builder) {
@@ -276,4 +1036,16 @@ public class MenuItemView extends LinearLayout {
         this.initView(builder.context);
         return this;
     }
+
+    /**
+     * 使用指定的 LayoutInflater 创建, 用于后台线程创建, 见 {@link MenuItemBuilder#createAsync}
+     */
+    MenuItemView create(MenuItemBuilder builder, LayoutInflater inflater) {
+        this.inflater = inflater;
+        try {
+            return create(builder);
+        } finally {
+            this.inflater = null;
+        }
+    }
 }
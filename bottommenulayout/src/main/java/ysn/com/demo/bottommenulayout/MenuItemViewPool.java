@@ -0,0 +1,259 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.view.ContextThemeWrapper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuItemViewPool
+ * @Description 进程内的 MenuItemView 复用池(默认关闭), 按 item 的 key 存放. 菜单从窗口移除后将 item 放回池中,
+ * 其他页面的菜单通过 {@link MenuItemBuilder} 创建 item 时优先取出并重新绑定, 不再重新 inflate.
+ * 池中的 View 使用 Application Context(主题复制自菜单所在页面)创建, 不持有 Activity;
+ * 配置(屏幕方向、夜间模式等)或主题变化时清空. 仅在主线程使用
+ * @Date 2020/6/22
+ */
+public final class MenuItemViewPool {
+
+    private static final int DEFAULT_MAX_SIZE = 16;
+
+    private static final LinkedHashMap<String, ArrayDeque<MenuItemView>> POOL = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 保存状态时保留的 item, 重建后的菜单按标识取回, 只弱引用, 不影响旧页面回收
+     */
+    private static final Map<String, List<WeakReference<MenuItemView>>> RETAINED = new HashMap<>();
+
+    private static boolean enabled;
+    private static int maxSize = DEFAULT_MAX_SIZE;
+    private static int size;
+
+    /**
+     * poolContext: 创建池中 View 使用的 Context
+     * poolTheme: poolContext 复制的主题的特征值, 见 {@link MenuThemeFingerprint}
+     * poolConfiguration: 创建 poolContext 时的配置
+     */
+    private static Context poolContext;
+    private static int poolTheme;
+    private static Configuration poolConfiguration;
+    private static boolean callbacksRegistered;
+
+    private MenuItemViewPool() {
+    }
+
+    /**
+     * 开启或关闭复用池, 关闭时清空
+     */
+    public static void setEnabled(boolean enabled) {
+        MenuItemViewPool.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 设置池中最多存放的 View 个数, 超出时丢弃最久未使用的
+     */
+    public static void setMaxSize(int maxSize) {
+        MenuItemViewPool.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public static int size() {
+        return size;
+    }
+
+    /**
+     * 清空复用池
+     */
+    public static void clear() {
+        POOL.clear();
+        RETAINED.clear();
+        size = 0;
+        poolContext = null;
+        poolConfiguration = null;
+    }
+
+    /**
+     * 获取 item: 开启复用池时优先取出同一 key 的 View 并重新绑定, 没有时使用与池相同的 Context 创建;
+     * 未开启时等同于 {@link MenuItemBuilder#create()}
+     *
+     * @param context 菜单所在页面的 Context
+     */
+    public static MenuItemView obtain(Context context, MenuItemBuilder builder) {
+        if (!enabled) {
+            return builder.create();
+        }
+        Context itemContext = getPoolContext(context);
+        ArrayDeque<MenuItemView> views = POOL.get(createKey(builder));
+        MenuItemView view = views == null ? null : views.poll();
+        if (view != null) {
+            size--;
+        } else {
+            view = new MenuItemView(itemContext);
+        }
+        return view.bind(builder);
+    }
+
+    /**
+     * 放回复用池, 不是由复用池创建、仍有父 View 或池已满时返回 false
+     */
+    static boolean release(MenuItemView view) {
+        MenuItemBuilder builder = view.getBuilder();
+        if (!enabled || builder == null || poolContext == null || view.getContext() != poolContext
+                || view.getParent() != null || isStale(view.getContext())) {
+            return false;
+        }
+        String key = createKey(builder);
+        view.recycle();
+        ArrayDeque<MenuItemView> views = POOL.get(key);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            POOL.put(key, views);
+        }
+        views.add(view);
+        size++;
+        trimToSize(maxSize);
+        return true;
+    }
+
+    /**
+     * 是否为复用池创建的 View
+     */
+    static boolean isPooled(MenuItemView view) {
+        return poolContext != null && view.getContext() == poolContext;
+    }
+
+    /**
+     * 是否可以直接添加到其他菜单: 由复用池创建(不持有页面)且创建后配置未变化
+     */
+    static boolean canReattach(MenuItemView view) {
+        return isPooled(view) && !isStale(view.getContext());
+    }
+
+    /**
+     * 保留 item 供重建后的菜单取回, 同一标识重复保留时覆盖
+     */
+    static void retain(String token, List<MenuItemView> views) {
+        Iterator<List<WeakReference<MenuItemView>>> iterator = RETAINED.values().iterator();
+        while (iterator.hasNext()) {
+            if (isCleared(iterator.next())) {
+                iterator.remove();
+            }
+        }
+        List<WeakReference<MenuItemView>> references = new ArrayList<>(views.size());
+        for (MenuItemView view : views) {
+            if (isPooled(view)) {
+                references.add(new WeakReference<>(view));
+            }
+        }
+        if (references.isEmpty()) {
+            RETAINED.remove(token);
+        } else {
+            RETAINED.put(token, references);
+        }
+    }
+
+    /**
+     * 取回保留的 item, 已回收的不再返回
+     */
+    static List<MenuItemView> takeRetained(String token) {
+        List<WeakReference<MenuItemView>> references = RETAINED.remove(token);
+        List<MenuItemView> views = new ArrayList<>();
+        if (references != null) {
+            for (WeakReference<MenuItemView> reference : references) {
+                MenuItemView view = reference.get();
+                if (view != null) {
+                    views.add(view);
+                }
+            }
+        }
+        return views;
+    }
+
+    private static boolean isCleared(List<WeakReference<MenuItemView>> references) {
+        for (WeakReference<MenuItemView> reference : references) {
+            if (reference.get() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String createKey(MenuItemBuilder builder) {
+        return (builder.flat ? "flat:" : "view:") + builder.getKey();
+    }
+
+    /**
+     * 获取创建 View 使用的 Context, 主题或配置与池不一致时清空并重新创建.
+     * 主题按属性值比较, 页面运行时调用 setTheme 修改主题也能识别
+     */
+    private static Context getPoolContext(Context context) {
+        Resources.Theme theme = context.getTheme();
+        int fingerprint = MenuThemeFingerprint.of(theme);
+        if (poolContext == null || poolTheme != fingerprint || isStale(poolContext)) {
+            clear();
+            Context appContext = context.getApplicationContext();
+            ContextThemeWrapper wrapper = new ContextThemeWrapper(appContext, context.getApplicationInfo().theme);
+            wrapper.getTheme().setTo(theme);
+            poolContext = wrapper;
+            poolTheme = fingerprint;
+            poolConfiguration = new Configuration(appContext.getResources().getConfiguration());
+            registerCallbacks(appContext);
+        }
+        return poolContext;
+    }
+
+    private static boolean isStale(Context context) {
+        return poolConfiguration == null || poolConfiguration.diff(context.getResources().getConfiguration()) != 0;
+    }
+
+    private static void registerCallbacks(Context appContext) {
+        if (callbacksRegistered) {
+            return;
+        }
+        callbacksRegistered = true;
+        appContext.registerComponentCallbacks(new ComponentCallbacks() {
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                if (poolConfiguration != null && poolConfiguration.diff(newConfig) != 0) {
+                    clear();
+                }
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+    }
+
+    private static void trimToSize(int maxSize) {
+        Iterator<Map.Entry<String, ArrayDeque<MenuItemView>>> iterator = POOL.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            ArrayDeque<MenuItemView> views = iterator.next().getValue();
+            while (size > maxSize && !views.isEmpty()) {
+                views.poll();
+                size--;
+            }
+            if (views.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.util.TypedValue;
+import android.widget.TextView;
+
+import androidx.collection.LruCache;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuLabelPrecomputer
+ * @Description 在后台线程预先计算菜单文本的排版结果, 使菜单首帧不再在主线程进行文本测量.
+ * 排版参数取自按 item 文本配置的模板 TextView(字体、语言、字间距、断行策略等与 item 一致), 结果按文本及排版参数缓存
+ * @Date 2020/6/13
+ */
+final class MenuLabelPrecomputer {
+
+    private static final int MAX_RESULTS = 64;
+
+    /**
+     * 排版参数, 按主题及字体大小缓存, 配置变化重建页面后主题不同, 不会取到旧的参数
+     */
+    private static final Map<Resources.Theme, Map<Integer, PrecomputedTextCompat.Params>> PARAMS = new WeakHashMap<>();
+
+    private static final LruCache<Key, Result> RESULTS = new LruCache<>(MAX_RESULTS);
+
+    private MenuLabelPrecomputer() {
+    }
+
+    /**
+     * 在 executor 中预计算文本, 已缓存时直接返回已完成的结果
+     */
+    static Future<Result> precompute(final Context context, final String text, final int textSize, Executor executor) {
+        FutureTask<Result> task = new FutureTask<>(new Callable<Result>() {
+            @Override
+            public Result call() {
+                PrecomputedTextCompat.Params params = getParams(context, textSize);
+                Key key = new Key(text, params);
+                Result result = RESULTS.get(key);
+                if (result != null) {
+                    return result;
+                }
+                PrecomputedTextCompat precomputedText = PrecomputedTextCompat.create(text, params);
+                // 扁平化模式按 FlatMenuItemRenderer 的画笔(默认字体)测量宽度
+                TextPaint flatPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+                flatPaint.setTextSize(textSize);
+                result = new Result(precomputedText, flatPaint.measureText(text));
+                RESULTS.put(key, result);
+                return result;
+            }
+        });
+        if (isCached(context, text, textSize)) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    private static boolean isCached(Context context, String text, int textSize) {
+        PrecomputedTextCompat.Params params;
+        synchronized (PARAMS) {
+            Map<Integer, PrecomputedTextCompat.Params> themeParams = PARAMS.get(context.getTheme());
+            params = themeParams == null ? null : themeParams.get(textSize);
+        }
+        return params != null && RESULTS.get(new Key(text, params)) != null;
+    }
+
+    /**
+     * 与 item 文本一致的排版参数: 模板 TextView 与 view_menu_item.xml 中的文本一样使用主题默认样式, 再按 item 设置字体大小
+     */
+    private static PrecomputedTextCompat.Params getParams(Context context, int textSize) {
+        Resources.Theme theme = context.getTheme();
+        synchronized (PARAMS) {
+            Map<Integer, PrecomputedTextCompat.Params> themeParams = PARAMS.get(theme);
+            PrecomputedTextCompat.Params params = themeParams == null ? null : themeParams.get(textSize);
+            if (params != null) {
+                return params;
+            }
+        }
+        TextView template = new TextView(context);
+        template.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+        PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(template);
+        synchronized (PARAMS) {
+            Map<Integer, PrecomputedTextCompat.Params> themeParams = PARAMS.get(theme);
+            if (themeParams == null) {
+                themeParams = new HashMap<>();
+                PARAMS.put(theme, themeParams);
+            }
+            themeParams.put(textSize, params);
+        }
+        return params;
+    }
+
+    /**
+     * 获取已完成的预计算结果, 未完成时返回 null, 不阻塞主线程
+     */
+    static Result getIfDone(Future<Result> future) {
+        if (future == null || !future.isDone()) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 将预计算结果设置到 TextView, 预计算未完成或排版参数与 TextView 不一致(如 TextView 被单独修改了样式)时返回 false
+     */
+    static boolean apply(TextView textView, Future<Result> future) {
+        Result result = getIfDone(future);
+        if (result == null) {
+            return false;
+        }
+        if (!TextViewCompat.getTextMetricsParams(textView).equals(result.text.getParams())) {
+            return false;
+        }
+        TextViewCompat.setPrecomputedText(textView, result.text);
+        return true;
+    }
+
+    static class Result {
+
+        final PrecomputedTextCompat text;
+        final float width;
+
+        Result(PrecomputedTextCompat text, float width) {
+            this.text = text;
+            this.width = width;
+        }
+    }
+
+    private static class Key {
+
+        private final String text;
+        private final PrecomputedTextCompat.Params params;
+
+        Key(String text, PrecomputedTextCompat.Params params) {
+            this.text = text;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return text.equals(key.text) && params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * text.hashCode() + params.hashCode();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuLayoutInflater
+ * @Description 后台线程创建 item 时使用的 LayoutInflater. 不复制页面 LayoutInflater 的 Factory(如 AppCompat 的 Factory2
+ * 非线程安全), 只创建系统控件, 主题仍使用传入的 Context
+ * @Date 2020/6/27
+ */
+final class MenuLayoutInflater extends LayoutInflater {
+
+    private static final String[] CLASS_PREFIXES = {"android.widget.", "android.webkit.", "android.app."};
+
+    MenuLayoutInflater(Context context) {
+        super(context);
+    }
+
+    @Override
+    public LayoutInflater cloneInContext(Context newContext) {
+        return new MenuLayoutInflater(newContext);
+    }
+
+    @Override
+    protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException {
+        for (String prefix : CLASS_PREFIXES) {
+            try {
+                View view = createView(name, prefix, attrs);
+                if (view != null) {
+                    return view;
+                }
+            } catch (ClassNotFoundException ignored) {
+                // 继续尝试下一个包名
+            }
+        }
+        // android.view. 下的控件(如 ViewStub)
+        return super.onCreateView(name, attrs);
+    }
+}
@@ -0,0 +1,43 @@
+package ysn.com.demo.bottommenulayout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuMetrics
+ * @Description 性能统计开关及 trace section 名称, 没有任何菜单设置 {@link BottomMenuLayout.OnMetricsListener} 时不做计时
+ * @Date 2020/6/20
+ */
+final class MenuMetrics {
+
+    static final String TRACE_INFLATE = "BottomMenu:inflateItem";
+    static final String TRACE_ADD_ITEMS = "BottomMenu:addItems";
+    static final String TRACE_SET_ITEMS = "BottomMenu:setItems";
+    static final String TRACE_APPLY_CHANGE = "BottomMenu:applyChange";
+    static final String TRACE_BADGE_FLUSH = "BottomMenu:badgeFlush";
+    static final String TRACE_RASTERIZE = "BottomMenu:rasterizeIcon";
+    static final String TRACE_DECODE_ICON = "BottomMenu:decodeIcon";
+
+    /**
+     * 已设置统计监听且未从窗口移除的菜单个数, item 可能在加入菜单之前创建(如异步创建), 因此按进程统一开关
+     */
+    private static final AtomicInteger LISTENER_COUNT = new AtomicInteger();
+
+    private MenuMetrics() {
+    }
+
+    static boolean isEnabled() {
+        return LISTENER_COUNT.get() > 0;
+    }
+
+    /**
+     * 菜单开始或停止统计, 由菜单在设置监听及 attach/detach 时成对调用
+     */
+    static void onMenuChanged(boolean enabled) {
+        if (enabled) {
+            LISTENER_COUNT.incrementAndGet();
+        } else {
+            LISTENER_COUNT.decrementAndGet();
+        }
+    }
+}
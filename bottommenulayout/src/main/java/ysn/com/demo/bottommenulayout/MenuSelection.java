@@ -0,0 +1,82 @@
+package ysn.com.demo.bottommenulayout;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuSelection
+ * @Description item 增删移动后选中位置的计算, 不依赖 Android
+ * @Date 2020/6/18
+ */
+final class MenuSelection {
+
+    private MenuSelection() {
+    }
+
+    /**
+     * 插入 item 后的选中位置
+     *
+     * @param current   插入前的选中位置
+     * @param position  插入位置
+     * @param sizeAfter 插入后的 item 个数
+     */
+    static int afterInsert(int current, int position, int sizeAfter) {
+        if (sizeAfter == 1) {
+            return 0;
+        }
+        return position <= current ? current + 1 : current;
+    }
+
+    /**
+     * 移除 item 后的选中位置, 移除的是选中 item 时由同一位置的 item 接替
+     *
+     * @param current   移除前的选中位置
+     * @param position  移除位置
+     * @param sizeAfter 移除后的 item 个数
+     */
+    static int afterRemove(int current, int position, int sizeAfter) {
+        if (position < current) {
+            return current - 1;
+        }
+        if (position == current) {
+            return Math.min(current, Math.max(sizeAfter - 1, 0));
+        }
+        return current;
+    }
+
+    /**
+     * 移动 item 后的选中位置, 选中状态跟随 item
+     */
+    static int afterMove(int current, int from, int to) {
+        if (current == from) {
+            return to;
+        }
+        if (from < current && to >= current) {
+            return current - 1;
+        }
+        if (from > current && to <= current) {
+            return current + 1;
+        }
+        return current;
+    }
+
+    /**
+     * 整体替换 item 后的选中位置, 原选中 item 保留时跟随该 item, 否则保持原位置(不超出范围)
+     *
+     * @param current 替换前的选中位置
+     * @param match   {@link MenuItemDiff#match} 的结果
+     */
+    static int afterSetItems(int current, int[] match) {
+        for (int i = 0; i < match.length; i++) {
+            if (match[i] == current) {
+                return i;
+            }
+        }
+        return Math.max(Math.min(current, match.length - 1), 0);
+    }
+
+    /**
+     * {@link #afterSetItems} 的结果是否为原选中 item
+     */
+    static boolean isKept(int current, int[] match, int newPosition) {
+        return newPosition < match.length && match[newPosition] == current;
+    }
+}
@@ -0,0 +1,322 @@
+package ysn.com.demo.bottommenulayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuState
+ * @Description 菜单状态模型(item、选中、角标), 不依赖 Android, 每次状态转换返回需要渲染的 {@link MenuChange},
+ * {@link BottomMenuLayout} 根据变更渲染 item. 非线程安全, 可通过 {@link BottomMenuLayout#getMenuState()} 获取副本
+ * 在其他线程计算新状态, 再通过 {@link #diff(MenuState)} 得到变更交给 {@link BottomMenuLayout#applyChange(MenuChange)}
+ * @Date 2020/6/19
+ */
+public final class MenuState {
+
+    public static final int NO_POSITION = -1;
+
+    /**
+     * 角标类型, 未读、消息、小红点仅能显示一个
+     */
+    public static final int BADGE_NONE = 0;
+    public static final int BADGE_UNREAD = 1;
+    public static final int BADGE_MSG = 2;
+    public static final int BADGE_POINT = 3;
+
+    private final List<Item> items;
+    private int selectedPosition;
+
+    public MenuState() {
+        items = new ArrayList<>();
+    }
+
+    private MenuState(MenuState source) {
+        items = new ArrayList<>(source.items.size());
+        for (Item item : source.items) {
+            items.add(new Item(item));
+        }
+        selectedPosition = source.selectedPosition;
+    }
+
+    /**
+     * 创建副本
+     */
+    public MenuState copy() {
+        return new MenuState(this);
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    /**
+     * 当前选中, 无 item 时为 0
+     */
+    public int getSelectedPosition() {
+        return selectedPosition;
+    }
+
+    public String getKey(int position) {
+        return items.get(position).key;
+    }
+
+    public int getBadgeKind(int position) {
+        return items.get(position).kind;
+    }
+
+    /**
+     * 未读数, 未显示未读数时返回 0
+     */
+    public int getUnreadNum(int position) {
+        return items.get(position).unreadNum;
+    }
+
+    public String getMsg(int position) {
+        return items.get(position).msg;
+    }
+
+    /**
+     * 选中
+     */
+    public MenuChange select(int position) {
+        checkPosition(position);
+        if (position == selectedPosition) {
+            return MenuChange.EMPTY;
+        }
+        int deselectedPosition = selectedPosition < items.size() ? selectedPosition : NO_POSITION;
+        selectedPosition = position;
+        return new MenuChange.Builder().select(deselectedPosition, position).build();
+    }
+
+    /**
+     * 设置未读数, 未读数 <= 0 时隐藏所有角标
+     */
+    public MenuChange setUnreadNum(int position, int unreadNum) {
+        if (unreadNum <= 0) {
+            return setBadge(position, BADGE_NONE, 0, null);
+        }
+        return setBadge(position, BADGE_UNREAD, unreadNum, null);
+    }
+
+    /**
+     * 显示提示消息
+     */
+    public MenuChange visibleMsg(int position, String msg) {
+        return setBadge(position, BADGE_MSG, 0, msg);
+    }
+
+    /**
+     * 隐藏提示消息, 当前显示的不是提示消息时无变化
+     */
+    public MenuChange goneMsg(int position) {
+        return gone(position, BADGE_MSG);
+    }
+
+    /**
+     * 显示小红点
+     */
+    public MenuChange visibleMsgPoint(int position) {
+        return setBadge(position, BADGE_POINT, 0, null);
+    }
+
+    /**
+     * 隐藏小红点, 当前显示的不是小红点时无变化
+     */
+    public MenuChange goneMsgPoint(int position) {
+        return gone(position, BADGE_POINT);
+    }
+
+    /**
+     * 插入 item, 新 item 无角标; 插入第一个 item 时选中该 item
+     */
+    public MenuChange insertItem(int position, String key) {
+        if (position < 0 || position > items.size()) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + items.size());
+        }
+        items.add(position, new Item(key));
+        selectedPosition = MenuSelection.afterInsert(selectedPosition, position, items.size());
+        if (items.size() == 1) {
+            return new MenuChange.Builder().select(NO_POSITION, 0).build();
+        }
+        return MenuChange.EMPTY;
+    }
+
+    /**
+     * 移除 item, 移除的是选中 item 时由同一位置的 item 接替
+     */
+    public MenuChange removeItem(int position) {
+        checkPosition(position);
+        items.remove(position);
+        boolean removeSelected = position == selectedPosition;
+        selectedPosition = MenuSelection.afterRemove(selectedPosition, position, items.size());
+        if (removeSelected && selectedPosition < items.size()) {
+            return new MenuChange.Builder().select(NO_POSITION, selectedPosition).build();
+        }
+        return MenuChange.EMPTY;
+    }
+
+    /**
+     * 移动 item, 选中状态及角标跟随 item
+     */
+    public MenuChange moveItem(int fromPosition, int toPosition) {
+        checkPosition(fromPosition);
+        checkPosition(toPosition);
+        items.add(toPosition, items.remove(fromPosition));
+        selectedPosition = MenuSelection.afterMove(selectedPosition, fromPosition, toPosition);
+        return MenuChange.EMPTY;
+    }
+
+    /**
+     * 替换 item, 新 item 无角标, 选中状态不变
+     */
+    public MenuChange replaceItem(int position, String key) {
+        checkPosition(position);
+        items.set(position, new Item(key));
+        return MenuChange.EMPTY;
+    }
+
+    /**
+     * 设置全部 item, key 相同的 item 保留角标, 原选中 item 保留时跟随该 item
+     */
+    public MenuChange setItems(List<String> keys) {
+        List<String> oldKeys = new ArrayList<>(items.size());
+        for (Item item : items) {
+            oldKeys.add(item.key);
+        }
+        return setItems(keys, MenuItemDiff.match(oldKeys, keys));
+    }
+
+    /**
+     * @param match {@link MenuItemDiff#match} 的结果
+     */
+    MenuChange setItems(List<String> keys, int[] match) {
+        List<Item> newItems = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            newItems.add(match[i] == MenuItemDiff.NO_MATCH ? new Item(keys.get(i)) : items.get(match[i]));
+        }
+        items.clear();
+        items.addAll(newItems);
+
+        int newSelectedPosition = MenuSelection.afterSetItems(selectedPosition, match);
+        boolean selectedKept = MenuSelection.isKept(selectedPosition, match, newSelectedPosition);
+        selectedPosition = newSelectedPosition;
+        if (!selectedKept && selectedPosition < items.size()) {
+            return new MenuChange.Builder().select(NO_POSITION, selectedPosition).build();
+        }
+        return MenuChange.EMPTY;
+    }
+
+    /**
+     * 计算从当前状态变为 target 所需的变更, 两者 item 个数需一致
+     */
+    public MenuChange diff(MenuState target) {
+        if (target.items.size() != items.size()) {
+            throw new IllegalArgumentException("item 个数不一致: " + items.size() + ", " + target.items.size());
+        }
+        MenuChange.Builder builder = new MenuChange.Builder();
+        if (target.selectedPosition != selectedPosition) {
+            builder.select(selectedPosition < items.size() ? selectedPosition : NO_POSITION, target.selectedPosition);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Item item = target.items.get(i);
+            if (!items.get(i).badgeEquals(item)) {
+                builder.badge(i, item.kind, item.unreadNum, item.msg);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 应用变更(如其他线程基于副本计算的变更), 超出范围或与当前一致的部分忽略
+     *
+     * @return 实际产生的变更
+     */
+    public MenuChange apply(MenuChange change) {
+        if (change.isEmpty()) {
+            return change;
+        }
+        MenuChange.Builder builder = new MenuChange.Builder();
+        boolean changed = false;
+        int position = change.getSelectedPosition();
+        if (change.isSelectionChanged() && position < items.size() && position != selectedPosition) {
+            builder.select(selectedPosition < items.size() ? selectedPosition : NO_POSITION, position);
+            selectedPosition = position;
+            changed = true;
+        }
+        for (int i = 0; i < change.getBadgeChangeCount(); i++) {
+            position = change.getBadgePosition(i);
+            if (position >= items.size()) {
+                continue;
+            }
+            Item item = items.get(position);
+            if (item.set(change.getBadgeKind(i), change.getUnreadNum(i), change.getMsg(i))) {
+                builder.badge(position, item.kind, item.unreadNum, item.msg);
+                changed = true;
+            }
+        }
+        return changed ? builder.build() : MenuChange.EMPTY;
+    }
+
+    private MenuChange setBadge(int position, int kind, int unreadNum, String msg) {
+        checkPosition(position);
+        Item item = items.get(position);
+        if (!item.set(kind, unreadNum, msg)) {
+            return MenuChange.EMPTY;
+        }
+        return new MenuChange.Builder().badge(position, kind, unreadNum, msg).build();
+    }
+
+    private MenuChange gone(int position, int kind) {
+        checkPosition(position);
+        if (items.get(position).kind != kind) {
+            return MenuChange.EMPTY;
+        }
+        return setBadge(position, BADGE_NONE, 0, null);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= items.size()) {
+            throw new IndexOutOfBoundsException("position: " + position + ", size: " + items.size());
+        }
+    }
+
+    private static class Item {
+
+        final String key;
+        int kind = BADGE_NONE;
+        int unreadNum;
+        String msg;
+
+        Item(String key) {
+            this.key = key;
+        }
+
+        Item(Item source) {
+            this.key = source.key;
+            this.kind = source.kind;
+            this.unreadNum = source.unreadNum;
+            this.msg = source.msg;
+        }
+
+        /**
+         * @return 是否有变化
+         */
+        boolean set(int kind, int unreadNum, String msg) {
+            if (this.kind == kind && this.unreadNum == unreadNum && equals(this.msg, msg)) {
+                return false;
+            }
+            this.kind = kind;
+            this.unreadNum = unreadNum;
+            this.msg = msg;
+            return true;
+        }
+
+        boolean badgeEquals(Item other) {
+            return kind == other.kind && unreadNum == other.unreadNum && equals(msg, other.msg);
+        }
+
+        private static boolean equals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
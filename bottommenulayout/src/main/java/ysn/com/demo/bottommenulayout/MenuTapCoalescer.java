@@ -0,0 +1,122 @@
+package ysn.com.demo.bottommenulayout;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuTapCoalescer
+ * @Description 点击合并, 不依赖 Android. 默认只分发最后一次: 第一次点击开始合并, 合并结束时分发期间的最后一次点击;
+ * leading 模式下第一次点击立即分发, 合并结束时分发期间的最后一次点击(与上一次分发的相同时忽略)并开始新的合并.
+ * 合并的计时由子类通过 {@link #schedule(long)} 实现, 到时调用 {@link #onWindowEnd()}, 仅在主线程使用
+ * @Date 2020/6/26
+ */
+abstract class MenuTapCoalescer<T> {
+
+    /**
+     * windowMillis: 合并时长, 小于 0 时不合并
+     * leading: 是否立即分发第一次点击
+     * windowOpen: 是否处于合并期间
+     * lastItem: 最近一次分发的点击
+     * pendingItem: 合并期间最后一次点击
+     */
+    private long windowMillis = -1;
+    private boolean leading;
+    private boolean windowOpen;
+    private T lastItem;
+    private T pendingItem;
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    boolean isLeading() {
+        return leading;
+    }
+
+    /**
+     * 设置合并时长, 只分发最后一次点击, 取消进行中的合并及未分发的点击
+     */
+    void setWindowMillis(long windowMillis) {
+        setWindowMillis(windowMillis, false);
+    }
+
+    /**
+     * 设置合并时长及是否立即分发第一次点击, 取消进行中的合并及未分发的点击
+     */
+    void setWindowMillis(long windowMillis, boolean leading) {
+        cancel();
+        this.windowMillis = windowMillis < 0 ? -1 : windowMillis;
+        this.leading = leading;
+    }
+
+    void tap(T item) {
+        if (windowMillis < 0) {
+            dispatch(item);
+        } else if (windowOpen) {
+            pendingItem = item;
+        } else if (!leading) {
+            pendingItem = item;
+            open();
+        } else if (dispatch(item)) {
+            lastItem = item;
+            open();
+        }
+    }
+
+    /**
+     * 合并结束, 由 {@link #schedule(long)} 的计时回调
+     */
+    void onWindowEnd() {
+        if (!windowOpen) {
+            return;
+        }
+        windowOpen = false;
+        T item = pendingItem;
+        pendingItem = null;
+        if (!leading) {
+            if (item != null) {
+                dispatch(item);
+            }
+            return;
+        }
+        if (item == null || item == lastItem || !dispatch(item)) {
+            lastItem = null;
+            return;
+        }
+        lastItem = item;
+        open();
+    }
+
+    /**
+     * 取消进行中的合并, 丢弃未分发的点击
+     */
+    void cancel() {
+        if (windowOpen) {
+            windowOpen = false;
+            unschedule();
+        }
+        pendingItem = null;
+        lastItem = null;
+    }
+
+    boolean isWindowOpen() {
+        return windowOpen;
+    }
+
+    private void open() {
+        windowOpen = true;
+        schedule(windowMillis);
+    }
+
+    /**
+     * 分发点击
+     *
+     * @return 是否已分发, item 已失效(如已移除)时返回 false
+     */
+    protected abstract boolean dispatch(T item);
+
+    /**
+     * 在 windowMillis 后(为 0 时为下一帧)调用 {@link #onWindowEnd()}
+     */
+    protected abstract void schedule(long windowMillis);
+
+    protected abstract void unschedule();
+}
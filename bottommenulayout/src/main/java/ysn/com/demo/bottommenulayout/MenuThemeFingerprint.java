@@ -0,0 +1,75 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.annotation.SuppressLint;
+import android.content.res.Resources;
+import android.os.Build;
+import android.util.TypedValue;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuThemeFingerprint
+ * @Description 主题的特征值, 按 item 的 TextView、ImageView、点击效果及图标着色会用到的主题属性计算.
+ * 每个页面的 Theme 都是不同的对象, 按特征值比较时属性值相同的主题视为同一个, 用于跨页面共用
+ * {@link MenuItemViewPool} 及 {@link MenuDrawableCache}; 页面运行时调用 setTheme 修改主题后特征值随之变化
+ * @Date 2020/6/28
+ */
+final class MenuThemeFingerprint {
+
+    /**
+     * 所有版本都有的框架属性及 AppCompat 主题属性(5.0 以下 AppCompat 主题只设置这些)
+     */
+    private static final int[] THEME_ATTRS = {
+            android.R.attr.textViewStyle,
+            android.R.attr.textAppearance,
+            android.R.attr.textAppearanceSmall,
+            android.R.attr.textColorPrimary,
+            android.R.attr.textColorSecondary,
+            android.R.attr.selectableItemBackground,
+            androidx.appcompat.R.attr.colorAccent,
+            androidx.appcompat.R.attr.colorPrimary,
+            androidx.appcompat.R.attr.colorControlNormal,
+            androidx.appcompat.R.attr.colorControlHighlight,
+            androidx.appcompat.R.attr.selectableItemBackgroundBorderless,
+    };
+
+    /**
+     * 5.0 及以上的框架属性, 5.0 以下不存在, 不解析
+     */
+    @SuppressLint("InlinedApi")
+    private static final int[] THEME_ATTRS_V21 = {
+            android.R.attr.colorAccent,
+            android.R.attr.colorPrimary,
+            android.R.attr.colorControlNormal,
+            android.R.attr.colorControlHighlight,
+            android.R.attr.selectableItemBackgroundBorderless,
+    };
+
+    private MenuThemeFingerprint() {
+    }
+
+    /**
+     * 计算主题的特征值, 主线程及后台线程均可调用
+     */
+    static int of(Resources.Theme theme) {
+        TypedValue value = new TypedValue();
+        int fingerprint = hash(theme, THEME_ATTRS, value, 1);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            fingerprint = hash(theme, THEME_ATTRS_V21, value, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static int hash(Resources.Theme theme, int[] attrs, TypedValue value, int fingerprint) {
+        for (int attr : attrs) {
+            int hash = 0;
+            if (theme.resolveAttribute(attr, value, true)) {
+                hash = value.type;
+                hash = 31 * hash + value.data;
+                hash = 31 * hash + value.resourceId;
+                hash = 31 * hash + (value.string != null ? value.string.toString().hashCode() : 0);
+            }
+            fingerprint = 31 * fingerprint + hash;
+        }
+        return fingerprint;
+    }
+}
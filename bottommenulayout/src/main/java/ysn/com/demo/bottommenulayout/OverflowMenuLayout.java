@@ -0,0 +1,514 @@
+package ysn.com.demo.bottommenulayout;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
+import androidx.viewpager.widget.ViewPager;
+import androidx.viewpager2.widget.ViewPager2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author yangsanning
+ * @ClassName OverflowMenuLayout
+ * @Description 可滚动的菜单, 适用于 item 较多的场景(如平板、侧边导航), 只为可见的 item 创建并绑定 {@link MenuItemView},
+ * 滑出屏幕的 item 回收复用. 选中、角标保存在 {@link MenuState} 中, 未绑定 View 的位置同样可以修改, 绑定时按状态渲染
+ * @Date 2020/6/21
+ */
+public class OverflowMenuLayout extends RecyclerView {
+
+    private static final String BUNDLE_INSTANCE = "BUNDLE_INSTANCE";
+    private static final String BUNDLE_CURRENT_POSITION = "BUNDLE_CURRENT_POSITION";
+
+    /**
+     * 只刷新选中、角标, 不重新绑定 item 数据
+     */
+    private static final Object PAYLOAD_STATE = new Object();
+
+    private final MenuState menuState = new MenuState();
+    private final List<MenuItemBuilder> builders = new ArrayList<>();
+    private final MenuAdapter menuAdapter = new MenuAdapter();
+    private final MenuLayoutManager menuLayoutManager;
+
+    private boolean smoothScroll;
+    private ViewPager viewPager1;
+    private ViewPager2 viewPager2;
+    private OnMenuItemSelectedListener onMenuItemSelectedListener;
+
+    /**
+     * 上一次滑动过渡的起始位置, 无过渡时为 -1
+     */
+    private int scrollingPosition = -1;
+
+    private ViewPager.OnPageChangeListener onPageChangeListener = new ViewPager.SimpleOnPageChangeListener() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            onMenuScrolled(position, positionOffset);
+        }
+
+        @Override
+        public void onPageSelected(int position) {
+            int previousPosition = menuState.getSelectedPosition();
+            selectItem(position);
+            notifyItemSelected(previousPosition, position);
+        }
+    };
+    private ViewPager2.OnPageChangeCallback onPageChangeCallback = new ViewPager2.OnPageChangeCallback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            onMenuScrolled(position, positionOffset);
+        }
+
+        @Override
+        public void onPageSelected(int position) {
+            onPageChangeListener.onPageSelected(position);
+        }
+    };
+
+    public OverflowMenuLayout(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public OverflowMenuLayout(@NonNull Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public OverflowMenuLayout(@NonNull Context context, @Nullable AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.OverflowMenuLayout);
+
+        smoothScroll = typedArray.getBoolean(R.styleable.OverflowMenuLayout_bml_smooth_scroll, false);
+        int orientation = typedArray.getInt(R.styleable.OverflowMenuLayout_oml_orientation, LinearLayoutManager.HORIZONTAL);
+        float visibleItemCount = typedArray.getFloat(R.styleable.OverflowMenuLayout_oml_visible_item_count, 0f);
+
+        typedArray.recycle();
+
+        menuLayoutManager = new MenuLayoutManager(context, orientation, visibleItemCount);
+        setLayoutManager(menuLayoutManager);
+        setAdapter(menuAdapter);
+        // 选中、角标变化直接在原 View 上更新, 不做替换动画
+        if (getItemAnimator() instanceof SimpleItemAnimator) {
+            ((SimpleItemAnimator) getItemAnimator()).setSupportsChangeAnimations(false);
+        }
+    }
+
+    public void setViewPager1(ViewPager viewPager1) {
+        removeOnPageChangeListener();
+        this.viewPager1 = viewPager1;
+        checkCount(builders.size());
+        viewPager1.addOnPageChangeListener(onPageChangeListener);
+    }
+
+    public void setViewPager2(ViewPager2 viewPager2) {
+        removeOnPageChangeListener();
+        this.viewPager2 = viewPager2;
+        checkCount(builders.size());
+        viewPager2.registerOnPageChangeCallback(onPageChangeCallback);
+    }
+
+    private void removeOnPageChangeListener() {
+        if (viewPager1 != null) {
+            viewPager1.removeOnPageChangeListener(onPageChangeListener);
+            viewPager1 = null;
+        }
+        if (viewPager2 != null) {
+            viewPager2.unregisterOnPageChangeCallback(onPageChangeCallback);
+            viewPager2 = null;
+        }
+    }
+
+    /**
+     * 检查个数是否一致
+     */
+    private void checkCount(int count) {
+        if (count == 0) {
+            return;
+        }
+        if (viewPager1 != null && viewPager1.getAdapter().getCount() != count) {
+            throw new IllegalArgumentException("OverflowMenuLayout Item 个数 于 ViewPager 子数量不一致");
+        }
+        if (viewPager2 != null && viewPager2.getAdapter().getItemCount() != count) {
+            throw new IllegalArgumentException("OverflowMenuLayout Item 个数 于 ViewPager2 子数量不一致");
+        }
+    }
+
+    /**
+     * 设置每屏显示的 item 个数(可为小数, 提示可以滚动), 仅横向有效, <= 0 时 item 宽度自适应
+     */
+    public void setVisibleItemCount(float visibleItemCount) {
+        menuLayoutManager.visibleItemCount = visibleItemCount;
+        requestLayout();
+    }
+
+    /**
+     * 设置全部Item, 与当前 item 按 {@link MenuItemBuilder#key(String)} 比较, key 相同的 item 保留角标及选中状态
+     */
+    public void setItems(List<MenuItemBuilder> newBuilders) {
+        checkCount(newBuilders.size());
+        final List<MenuItemBuilder> oldBuilders = new ArrayList<>(builders);
+        final List<String> oldKeys = new ArrayList<>(oldBuilders.size());
+        for (MenuItemBuilder builder : oldBuilders) {
+            oldKeys.add(builder.getKey());
+        }
+        final List<String> newKeys = new ArrayList<>(newBuilders.size());
+        for (MenuItemBuilder builder : newBuilders) {
+            newKeys.add(builder.getKey());
+        }
+
+        MenuChange change = menuState.setItems(newKeys, MenuItemDiff.match(oldKeys, newKeys));
+        builders.clear();
+        builders.addAll(newBuilders);
+
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldKeys.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newKeys.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                String oldKey = oldKeys.get(oldItemPosition);
+                return oldKey == null ? newKeys.get(newItemPosition) == null : oldKey.equals(newKeys.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldBuilders.get(oldItemPosition) == builders.get(newItemPosition);
+            }
+        }).dispatchUpdatesTo(menuAdapter);
+        render(change);
+    }
+
+    public MenuItemBuilder getItem(int position) {
+        return builders.get(position);
+    }
+
+    public int getItemCount() {
+        return builders.size();
+    }
+
+    /**
+     * 获取已绑定的 item view, 未显示的位置返回 null
+     */
+    @Nullable
+    public MenuItemView findMenuItemView(int position) {
+        ViewHolder holder = findViewHolderForAdapterPosition(position);
+        return holder == null ? null : (MenuItemView) holder.itemView;
+    }
+
+    /**
+     * 根据滑动进度在相邻两个 item 之间过渡, 只处理已绑定的 item
+     */
+    private void onMenuScrolled(int position, float positionOffset) {
+        if (scrollingPosition != -1 && scrollingPosition != position) {
+            finishScrolling();
+        }
+        if (positionOffset == 0f || position < 0 || position + 1 >= builders.size()) {
+            finishScrolling();
+            return;
+        }
+        scrollingPosition = position;
+        MenuItemView item = findMenuItemView(position);
+        if (item != null) {
+            item.setSelectionFraction(1f - positionOffset);
+        }
+        MenuItemView nextItem = findMenuItemView(position + 1);
+        if (nextItem != null) {
+            nextItem.setSelectionFraction(positionOffset);
+        }
+    }
+
+    /**
+     * 结束过渡, 恢复涉及的 item 的选中状态
+     */
+    private void finishScrolling() {
+        if (scrollingPosition == -1) {
+            return;
+        }
+        for (int i = scrollingPosition; i <= scrollingPosition + 1; i++) {
+            MenuItemView item = findMenuItemView(i);
+            if (item != null) {
+                item.refreshItem(i == menuState.getSelectedPosition());
+            }
+        }
+        scrollingPosition = -1;
+    }
+
+    private OnClickListener menuItemOnClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            int thisPosition = getChildAdapterPosition(v);
+            if (thisPosition == NO_POSITION) {
+                return;
+            }
+            int currentPosition = menuState.getSelectedPosition();
+            if (thisPosition == currentPosition || (viewPager1 == null && viewPager2 == null)) {
+                // 重复点击时 setCurrentItem 不会回调 onPageSelected(), 所以在此处需要回调点击监听
+                notifyItemSelected(currentPosition, thisPosition);
+                selectItem(thisPosition);
+            } else if (viewPager1 != null) {
+                viewPager1.setCurrentItem(thisPosition, smoothScroll);
+            } else {
+                viewPager2.setCurrentItem(thisPosition, smoothScroll);
+            }
+        }
+    };
+
+    /**
+     * 选中 Item, 并滚动到可见位置
+     */
+    private void selectItem(int position) {
+        render(menuState.select(position));
+        if (smoothScroll) {
+            smoothScrollToPosition(position);
+        } else {
+            scrollToPosition(position);
+        }
+    }
+
+    private void notifyItemSelected(int previousPosition, int position) {
+        if (onMenuItemSelectedListener != null) {
+            onMenuItemSelectedListener.onItemSelected(builders.get(position), previousPosition, position);
+        }
+    }
+
+    /**
+     * 设置当前选中
+     */
+    public void setCurrentPosition(int currentPosition) {
+        if (viewPager1 != null) {
+            viewPager1.setCurrentItem(currentPosition, smoothScroll);
+        } else if (viewPager2 != null) {
+            viewPager2.setCurrentItem(currentPosition, smoothScroll);
+        } else {
+            notifyItemSelected(menuState.getSelectedPosition(), currentPosition);
+            selectItem(currentPosition);
+        }
+    }
+
+    public int getCurrentPosition() {
+        return menuState.getSelectedPosition();
+    }
+
+    public void setSmoothScroll(boolean smoothScroll) {
+        this.smoothScroll = smoothScroll;
+    }
+
+    /**
+     * 设置未读数
+     */
+    public void setUnreadNum(int position, int unreadNum) {
+        render(menuState.setUnreadNum(position, unreadNum));
+    }
+
+    /**
+     * 显示提示消息
+     */
+    public void visibleMsg(int position, String msg) {
+        render(menuState.visibleMsg(position, msg));
+    }
+
+    /**
+     * 隐藏提示消息
+     */
+    public void goneMsg(int position) {
+        render(menuState.goneMsg(position));
+    }
+
+    /**
+     * 显示小红点
+     */
+    public void visibleMsgPoint(int position) {
+        render(menuState.visibleMsgPoint(position));
+    }
+
+    /**
+     * 隐藏小红点
+     */
+    public void goneMsgPoint(int position) {
+        render(menuState.goneMsgPoint(position));
+    }
+
+    /**
+     * 获取当前状态的副本, 可在其他线程修改副本并通过 {@link MenuState#diff(MenuState)} 计算变更
+     */
+    public MenuState getMenuState() {
+        return menuState.copy();
+    }
+
+    /**
+     * 应用变更(主线程), 超出范围或与当前状态一致的部分忽略
+     */
+    public void applyChange(MenuChange change) {
+        render(menuState.apply(change));
+    }
+
+    /**
+     * 根据变更刷新已绑定的 item, 未绑定的位置在绑定时按状态渲染
+     */
+    private void render(MenuChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        if (change.isSelectionChanged()) {
+            if (change.getDeselectedPosition() != MenuState.NO_POSITION) {
+                menuAdapter.notifyItemChanged(change.getDeselectedPosition(), PAYLOAD_STATE);
+            }
+            menuAdapter.notifyItemChanged(change.getSelectedPosition(), PAYLOAD_STATE);
+        }
+        for (int i = 0; i < change.getBadgeChangeCount(); i++) {
+            menuAdapter.notifyItemChanged(change.getBadgePosition(i), PAYLOAD_STATE);
+        }
+    }
+
+    /**
+     * 按状态渲染 item 的选中及角标
+     */
+    private void renderState(MenuItemView item, int position) {
+        item.refreshItem(position == menuState.getSelectedPosition());
+        switch (menuState.getBadgeKind(position)) {
+            case MenuState.BADGE_UNREAD:
+                item.setUnreadNum(menuState.getUnreadNum(position));
+                break;
+            case MenuState.BADGE_MSG:
+                item.visibleMsg(menuState.getMsg(position));
+                break;
+            case MenuState.BADGE_POINT:
+                item.visibleMsgPoint();
+                break;
+            default:
+                item.setUnreadNum(0);
+                break;
+        }
+    }
+
+    public void setOnMenuItemSelectedListener(OnMenuItemSelectedListener onMenuItemSelectedListener) {
+        this.onMenuItemSelectedListener = onMenuItemSelectedListener;
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        Bundle bundle = new Bundle();
+        bundle.putParcelable(BUNDLE_INSTANCE, super.onSaveInstanceState());
+        bundle.putInt(BUNDLE_CURRENT_POSITION, menuState.getSelectedPosition());
+        return bundle;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof Bundle) {
+            Bundle bundle = (Bundle) state;
+            int currentPosition = bundle.getInt(BUNDLE_CURRENT_POSITION);
+            if (currentPosition < builders.size()) {
+                render(menuState.select(currentPosition));
+            }
+            super.onRestoreInstanceState(bundle.getParcelable(BUNDLE_INSTANCE));
+        } else {
+            super.onRestoreInstanceState(state);
+        }
+    }
+
+    public interface OnMenuItemSelectedListener {
+
+        /**
+         * 选中回调
+         *
+         * @param builder          item 数据
+         * @param previousPosition 上一个选中
+         * @param currentPosition  当前选中
+         */
+        void onItemSelected(MenuItemBuilder builder, int previousPosition, int currentPosition);
+    }
+
+    private static class MenuItemHolder extends ViewHolder {
+
+        final MenuItemView menuItemView;
+
+        MenuItemHolder(MenuItemView menuItemView) {
+            super(menuItemView);
+            this.menuItemView = menuItemView;
+        }
+    }
+
+    private class MenuAdapter extends Adapter<MenuItemHolder> {
+
+        @NonNull
+        @Override
+        public MenuItemHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            MenuItemView menuItemView = new MenuItemView(parent.getContext());
+            menuItemView.setLayoutParams(menuLayoutManager.generateDefaultLayoutParams());
+            menuItemView.setOnClickListener(menuItemOnClickListener);
+            return new MenuItemHolder(menuItemView);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MenuItemHolder holder, int position) {
+            holder.menuItemView.bind(builders.get(position));
+            renderState(holder.menuItemView, position);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull MenuItemHolder holder, int position, @NonNull List<Object> payloads) {
+            if (payloads.isEmpty()) {
+                onBindViewHolder(holder, position);
+            } else {
+                renderState(holder.menuItemView, position);
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return builders.size();
+        }
+    }
+
+    /**
+     * 横向时按每屏显示个数平分宽度
+     */
+    private static class MenuLayoutManager extends LinearLayoutManager {
+
+        float visibleItemCount;
+
+        MenuLayoutManager(Context context, int orientation, float visibleItemCount) {
+            super(context, orientation, false);
+            this.visibleItemCount = visibleItemCount;
+        }
+
+        @Override
+        public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+            if (getOrientation() == HORIZONTAL) {
+                return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.MATCH_PARENT);
+            }
+            return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        }
+
+        @Override
+        public void measureChildWithMargins(@NonNull View child, int widthUsed, int heightUsed) {
+            if (getOrientation() == HORIZONTAL) {
+                int width = ViewGroup.LayoutParams.WRAP_CONTENT;
+                if (visibleItemCount > 0) {
+                    width = Math.max((int) ((getWidth() - getPaddingLeft() - getPaddingRight()) / visibleItemCount), 0);
+                }
+                child.getLayoutParams().width = width;
+            }
+            super.measureChildWithMargins(child, widthUsed, heightUsed);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ysn.com.demo.bottommenulayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author yangsanning
+ * @ClassName UnreadTextTable
+ * @Description 未读数文本表, 0..{@value #CACHED_MAX} 的文本所有表共用一份(按需填充), 更大的未读数每次格式化;
+ * 超出最大未读数时返回 "maxUnreadNum+". 相同最大未读数的 item 共用一个表, 最多保留 {@value #MAX_TABLES} 个, 不依赖 Android
+ * @Date 2020/6/10
+ */
+final class UnreadTextTable {
+
+    /**
+     * CACHED_MAX: 缓存文本的最大未读数, 最大未读数再大(如 Integer.MAX_VALUE 表示不限制)也只缓存这一段
+     * MAX_TABLES: 保留的表个数, 超出时丢弃最久未使用的
+     */
+    static final int CACHED_MAX = 999;
+    static final int MAX_TABLES = 8;
+
+    private static final String[] TEXTS = new String[CACHED_MAX + 1];
+
+    private static final LinkedHashMap<Integer, UnreadTextTable> TABLES = new LinkedHashMap<Integer, UnreadTextTable>(MAX_TABLES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, UnreadTextTable> eldest) {
+            return size() > MAX_TABLES;
+        }
+    };
+
+    private final int maxUnreadNum;
+    private final String overflowText;
+
+    private UnreadTextTable(int maxUnreadNum) {
+        this.maxUnreadNum = maxUnreadNum;
+        this.overflowText = maxUnreadNum + "+";
+    }
+
+    /**
+     * 获取指定最大未读数对应的文本表
+     */
+    static UnreadTextTable of(int maxUnreadNum) {
+        int max = Math.max(maxUnreadNum, 0);
+        synchronized (TABLES) {
+            UnreadTextTable table = TABLES.get(max);
+            if (table == null) {
+                table = new UnreadTextTable(max);
+                TABLES.put(max, table);
+            }
+            return table;
+        }
+    }
+
+    int getMaxUnreadNum() {
+        return maxUnreadNum;
+    }
+
+    /**
+     * 获取未读数文本, 超出最大未读数时返回 "maxUnreadNum+", 不超过 {@link #CACHED_MAX} 时缓存后重复获取不再创建对象
+     */
+    String get(int unreadNum) {
+        if (unreadNum > maxUnreadNum) {
+            return overflowText;
+        }
+        int index = Math.max(unreadNum, 0);
+        if (index > CACHED_MAX) {
+            return String.valueOf(index);
+        }
+        String text = TEXTS[index];
+        if (text == null) {
+            // 按需填充, 并发情况下最多重复创建一次, 不影响结果
+            text = String.valueOf(index);
+            TEXTS[index] = text;
+        }
+        return text;
+    }
+}
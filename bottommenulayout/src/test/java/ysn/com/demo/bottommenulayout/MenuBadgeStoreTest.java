@@ -0,0 +1,124 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuBadgeStoreTest
+ * @Description {@link MenuBadgeStore} 未绑定菜单时的写入、变化标记及并发写入的一致性
+ * @Date 2020/6/9
+ */
+public class MenuBadgeStoreTest {
+
+    @Test
+    public void write_marksDirtyOnlyWhenChanged() {
+        MenuBadgeStore store = new MenuBadgeStore(2);
+        store.setUnreadNum(0, 3);
+        assertEquals(3, store.getUnreadNum(0));
+        assertEquals(MenuState.BADGE_UNREAD, store.getBadgeKind(0));
+        assertTrue(store.takeDirty(0));
+        assertFalse(store.takeDirty(0));
+        assertFalse(store.takeDirty(1));
+
+        store.setUnreadNum(0, 3);
+        assertFalse(store.takeDirty(0));
+
+        store.visibleMsg(0, "msg");
+        assertTrue(store.takeDirty(0));
+        store.visibleMsg(0, new String("msg"));
+        assertFalse(store.takeDirty(0));
+        assertEquals(0, store.getUnreadNum(0));
+    }
+
+    @Test
+    public void gone_onlyHidesMatchingKind() {
+        MenuBadgeStore store = new MenuBadgeStore(1);
+        store.setUnreadNum(0, 5);
+        store.takeDirty(0);
+        store.goneMsg(0);
+        store.goneMsgPoint(0);
+        assertFalse(store.takeDirty(0));
+        assertEquals(5, store.getUnreadNum(0));
+
+        store.visibleMsg(0, "msg");
+        store.goneMsg(0);
+        assertTrue(store.takeDirty(0));
+        assertEquals(MenuState.BADGE_NONE, store.getBadgeKind(0));
+        assertNull(store.getMsg(0));
+
+        store.visibleMsgPoint(0);
+        store.setUnreadNum(0, 0);
+        assertEquals(MenuState.BADGE_NONE, store.getBadgeKind(0));
+    }
+
+    @Test
+    public void concurrentMsgWrites_neverTearBadge() throws InterruptedException {
+        final MenuBadgeStore store = new MenuBadgeStore(1);
+        final int rounds = 200000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> error = new AtomicReference<>();
+
+        Thread visible = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                for (int i = 0; i < rounds; i++) {
+                    store.visibleMsg(0, "msg" + (i & 7));
+                }
+            }
+        });
+        Thread gone = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                for (int i = 0; i < rounds; i++) {
+                    store.goneMsg(0);
+                }
+            }
+        });
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                while (running.get()) {
+                    MenuBadgeStore.Badge badge = store.getBadge(0);
+                    boolean isMsg = badge.kind == MenuState.BADGE_MSG;
+                    if (isMsg == (badge.msg == null)) {
+                        error.set("kind: " + badge.kind + ", msg: " + badge.msg);
+                        return;
+                    }
+                }
+            }
+        });
+        visible.start();
+        gone.start();
+        reader.start();
+        start.countDown();
+        visible.join();
+        gone.join();
+        running.set(false);
+        reader.join();
+
+        assertNull(error.get());
+        MenuBadgeStore.Badge badge = store.getBadge(0);
+        assertEquals(badge.kind == MenuState.BADGE_MSG, badge.msg != null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
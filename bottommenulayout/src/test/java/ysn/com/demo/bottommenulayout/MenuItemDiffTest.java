@@ -0,0 +1,51 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuItemDiffTest
+ * @Description {@link MenuItemDiff#match} 按 key 对应新旧 item
+ * @Date 2020/6/7
+ */
+public class MenuItemDiffTest {
+
+    private static int[] match(String[] oldKeys, String... newKeys) {
+        return MenuItemDiff.match(Arrays.asList(oldKeys), Arrays.asList(newKeys));
+    }
+
+    @Test
+    public void sameKeys_matchInPlace() {
+        assertArrayEquals(new int[]{0, 1, 2}, match(new String[]{"a", "b", "c"}, "a", "b", "c"));
+    }
+
+    @Test
+    public void reorderInsertRemove() {
+        int[] result = match(new String[]{"a", "b", "c", "d"}, "a", "d", "x", "b");
+        assertArrayEquals(new int[]{0, 3, MenuItemDiff.NO_MATCH, 1}, result);
+    }
+
+    @Test
+    public void duplicateKeys_matchInOrder() {
+        int[] result = match(new String[]{"a", "b", "a"}, "b", "a", "a", "a");
+        assertArrayEquals(new int[]{1, 0, 2, MenuItemDiff.NO_MATCH}, result);
+    }
+
+    @Test
+    public void nullKeys_matchEachOther() {
+        int[] result = match(new String[]{null, "a"}, "a", null);
+        assertArrayEquals(new int[]{1, 0}, result);
+    }
+
+    @Test
+    public void emptyLists() {
+        assertArrayEquals(new int[0], MenuItemDiff.match(Collections.<String>emptyList(), Collections.<String>emptyList()));
+        assertArrayEquals(new int[]{MenuItemDiff.NO_MATCH}, match(new String[0], "a"));
+        assertArrayEquals(new int[0], match(new String[]{"a"}));
+    }
+}
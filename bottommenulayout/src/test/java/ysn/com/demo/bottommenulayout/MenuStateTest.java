@@ -0,0 +1,207 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuStateTest
+ * @Description {@link MenuState} 选中跟随、角标变更及 diff/apply
+ * @Date 2020/6/19
+ */
+public class MenuStateTest {
+
+    private static MenuState newState(String... keys) {
+        MenuState state = new MenuState();
+        for (String key : keys) {
+            state.insertItem(state.getItemCount(), key);
+        }
+        return state;
+    }
+
+    @Test
+    public void insertFirstItem_selectsIt() {
+        MenuState state = new MenuState();
+        MenuChange change = state.insertItem(0, "a");
+        assertTrue(change.isSelectionChanged());
+        assertEquals(MenuState.NO_POSITION, change.getDeselectedPosition());
+        assertEquals(0, change.getSelectedPosition());
+        assertTrue(state.insertItem(1, "b").isEmpty());
+    }
+
+    @Test
+    public void select_reportsDeselectedAndSelected() {
+        MenuState state = newState("a", "b", "c");
+        MenuChange change = state.select(2);
+        assertEquals(0, change.getDeselectedPosition());
+        assertEquals(2, change.getSelectedPosition());
+        assertEquals(2, state.getSelectedPosition());
+        assertSame(MenuChange.EMPTY, state.select(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void select_outOfRange_throws() {
+        newState("a").select(1);
+    }
+
+    @Test
+    public void insertBeforeSelected_shiftsSelection() {
+        MenuState state = newState("a", "b", "c");
+        state.select(1);
+        assertTrue(state.insertItem(0, "x").isEmpty());
+        assertEquals(2, state.getSelectedPosition());
+        assertTrue(state.insertItem(3, "y").isEmpty());
+        assertEquals(2, state.getSelectedPosition());
+    }
+
+    @Test
+    public void removeBeforeSelected_shiftsSelection() {
+        MenuState state = newState("a", "b", "c");
+        state.select(2);
+        assertTrue(state.removeItem(0).isEmpty());
+        assertEquals(1, state.getSelectedPosition());
+        assertEquals("c", state.getKey(1));
+    }
+
+    @Test
+    public void removeSelected_nextItemTakesOver() {
+        MenuState state = newState("a", "b", "c");
+        state.select(1);
+        MenuChange change = state.removeItem(1);
+        assertEquals(MenuState.NO_POSITION, change.getDeselectedPosition());
+        assertEquals(1, change.getSelectedPosition());
+        assertEquals("c", state.getKey(state.getSelectedPosition()));
+    }
+
+    @Test
+    public void removeSelectedLast_previousItemTakesOver() {
+        MenuState state = newState("a", "b", "c");
+        state.select(2);
+        MenuChange change = state.removeItem(2);
+        assertEquals(1, change.getSelectedPosition());
+        assertEquals(1, state.getSelectedPosition());
+    }
+
+    @Test
+    public void removeOnlyItem_noSelectionChange() {
+        MenuState state = newState("a");
+        assertTrue(state.removeItem(0).isEmpty());
+        assertEquals(0, state.getItemCount());
+    }
+
+    @Test
+    public void move_selectionAndBadgeFollowItem() {
+        MenuState state = newState("a", "b", "c");
+        state.setUnreadNum(0, 3);
+        assertTrue(state.moveItem(0, 2).isEmpty());
+        assertEquals(2, state.getSelectedPosition());
+        assertEquals("a", state.getKey(2));
+        assertEquals(3, state.getUnreadNum(2));
+
+        state.select(1);
+        state.moveItem(2, 0);
+        assertEquals(2, state.getSelectedPosition());
+        assertEquals("c", state.getKey(2));
+    }
+
+    @Test
+    public void badge_changesOnlyWhenDifferent() {
+        MenuState state = newState("a", "b");
+        MenuChange change = state.setUnreadNum(1, 5);
+        assertFalse(change.isSelectionChanged());
+        assertEquals(1, change.getBadgeChangeCount());
+        assertEquals(1, change.getBadgePosition(0));
+        assertEquals(MenuState.BADGE_UNREAD, change.getBadgeKind(0));
+        assertEquals(5, change.getUnreadNum(0));
+        assertTrue(state.setUnreadNum(1, 5).isEmpty());
+
+        // 隐藏的不是当前显示的角标时无变化
+        assertTrue(state.goneMsg(1).isEmpty());
+        assertTrue(state.goneMsgPoint(1).isEmpty());
+
+        change = state.visibleMsg(1, "new");
+        assertEquals(MenuState.BADGE_MSG, change.getBadgeKind(0));
+        assertEquals("new", change.getMsg(0));
+        assertEquals(0, state.getUnreadNum(1));
+
+        change = state.goneMsg(1);
+        assertEquals(MenuState.BADGE_NONE, change.getBadgeKind(0));
+        assertNull(state.getMsg(1));
+        assertTrue(state.setUnreadNum(1, 0).isEmpty());
+    }
+
+    @Test
+    public void diffThenApply_reachesTarget() {
+        MenuState state = newState("a", "b", "c");
+        state.visibleMsgPoint(2);
+        MenuState target = state.copy();
+        target.select(1);
+        target.setUnreadNum(0, 7);
+        target.goneMsgPoint(2);
+
+        // 修改副本不影响原状态
+        assertEquals(0, state.getSelectedPosition());
+        assertEquals(MenuState.BADGE_POINT, state.getBadgeKind(2));
+
+        MenuChange change = state.diff(target);
+        assertEquals(0, change.getDeselectedPosition());
+        assertEquals(1, change.getSelectedPosition());
+        assertEquals(2, change.getBadgeChangeCount());
+
+        MenuChange applied = state.apply(change);
+        assertEquals(1, applied.getSelectedPosition());
+        assertEquals(2, applied.getBadgeChangeCount());
+        assertEquals(1, state.getSelectedPosition());
+        assertEquals(7, state.getUnreadNum(0));
+        assertEquals(MenuState.BADGE_NONE, state.getBadgeKind(2));
+        assertTrue(state.diff(target).isEmpty());
+        assertSame(MenuChange.EMPTY, state.apply(change));
+    }
+
+    @Test
+    public void apply_ignoresOutOfRange() {
+        MenuState large = newState("a", "b", "c");
+        large.select(2);
+        large.setUnreadNum(2, 1);
+        MenuChange change = newState("a", "b", "c").diff(large);
+
+        MenuState small = newState("a", "b");
+        assertTrue(small.apply(change).isEmpty());
+        assertEquals(0, small.getSelectedPosition());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void diff_differentSize_throws() {
+        newState("a").diff(newState("a", "b"));
+    }
+
+    @Test
+    public void setItems_keepsBadgeAndSelectionByKey() {
+        MenuState state = newState("a", "b", "c");
+        state.setUnreadNum(1, 4);
+        state.select(2);
+
+        assertTrue(state.setItems(Arrays.asList("c", "x", "b")).isEmpty());
+        assertEquals(0, state.getSelectedPosition());
+        assertEquals(4, state.getUnreadNum(2));
+        assertEquals(MenuState.BADGE_NONE, state.getBadgeKind(1));
+    }
+
+    @Test
+    public void setItems_selectedRemoved_selectsSamePosition() {
+        MenuState state = newState("a", "b", "c");
+        state.select(2);
+        MenuChange change = state.setItems(Arrays.asList("a", "x"));
+        assertEquals(MenuState.NO_POSITION, change.getDeselectedPosition());
+        assertEquals(1, change.getSelectedPosition());
+        assertEquals(1, state.getSelectedPosition());
+        assertEquals("x", state.getKey(1));
+    }
+}
@@ -0,0 +1,167 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @Author yangsanning
+ * @ClassName MenuTapCoalescerTest
+ * @Description {@link MenuTapCoalescer} 默认只分发合并期间的最后一次点击; leading 模式立即分发第一次点击, 合并期间只分发最后一次
+ * @Date 2020/6/26
+ */
+public class MenuTapCoalescerTest {
+
+    private static class RecordingCoalescer extends MenuTapCoalescer<String> {
+
+        final List<String> dispatched = new ArrayList<>();
+        final Set<String> removed = new HashSet<>();
+        int scheduled;
+        int unscheduled;
+
+        @Override
+        protected boolean dispatch(String item) {
+            if (removed.contains(item)) {
+                return false;
+            }
+            dispatched.add(item);
+            return true;
+        }
+
+        @Override
+        protected void schedule(long windowMillis) {
+            scheduled++;
+        }
+
+        @Override
+        protected void unschedule() {
+            unscheduled++;
+        }
+    }
+
+    @Test
+    public void disabled_dispatchesEveryTap() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.tap("a");
+        coalescer.tap("b");
+        coalescer.tap("b");
+        assertEquals(Arrays.asList("a", "b", "b"), coalescer.dispatched);
+        assertEquals(0, coalescer.scheduled);
+    }
+
+    @Test
+    public void trailing_dispatchesOnlyLastTap() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(0);
+        assertFalse(coalescer.isLeading());
+        coalescer.tap("a");
+        coalescer.tap("c");
+        assertTrue(coalescer.dispatched.isEmpty());
+        assertTrue(coalescer.isWindowOpen());
+
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("c"), coalescer.dispatched);
+        assertFalse(coalescer.isWindowOpen());
+        assertEquals(1, coalescer.scheduled);
+
+        coalescer.tap("a");
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("c", "a"), coalescer.dispatched);
+    }
+
+    @Test
+    public void trailing_removedItemDropped() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(100);
+        coalescer.tap("a");
+        coalescer.removed.add("a");
+        coalescer.onWindowEnd();
+        assertTrue(coalescer.dispatched.isEmpty());
+        assertFalse(coalescer.isWindowOpen());
+    }
+
+    @Test
+    public void window_dispatchesFirstImmediatelyAndLastAtEnd() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(100, true);
+        coalescer.tap("a");
+        coalescer.tap("b");
+        coalescer.tap("c");
+        assertEquals(Arrays.asList("a"), coalescer.dispatched);
+        assertTrue(coalescer.isWindowOpen());
+
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("a", "c"), coalescer.dispatched);
+        // 分发后开始新的合并
+        assertTrue(coalescer.isWindowOpen());
+        assertEquals(2, coalescer.scheduled);
+
+        coalescer.onWindowEnd();
+        assertFalse(coalescer.isWindowOpen());
+        coalescer.tap("d");
+        assertEquals(Arrays.asList("a", "c", "d"), coalescer.dispatched);
+    }
+
+    @Test
+    public void repeatedSameItem_dispatchedOnce() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(0, true);
+        coalescer.tap("a");
+        coalescer.tap("a");
+        coalescer.tap("a");
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("a"), coalescer.dispatched);
+        assertFalse(coalescer.isWindowOpen());
+    }
+
+    @Test
+    public void backToFirstItem_stillDispatched() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(100, true);
+        coalescer.tap("a");
+        coalescer.onWindowEnd();
+        coalescer.tap("b");
+        coalescer.tap("a");
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("a", "b", "a"), coalescer.dispatched);
+    }
+
+    @Test
+    public void removedPendingItem_dropped() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(100, true);
+        coalescer.tap("a");
+        coalescer.tap("b");
+        coalescer.removed.add("b");
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("a"), coalescer.dispatched);
+        assertFalse(coalescer.isWindowOpen());
+    }
+
+    @Test
+    public void cancel_dropsPendingAndUnschedules() {
+        RecordingCoalescer coalescer = new RecordingCoalescer();
+        coalescer.setWindowMillis(100, true);
+        coalescer.tap("a");
+        coalescer.tap("b");
+        coalescer.cancel();
+        assertEquals(1, coalescer.unscheduled);
+        // 取消后迟到的回调不分发
+        coalescer.onWindowEnd();
+        assertEquals(Arrays.asList("a"), coalescer.dispatched);
+
+        coalescer.setWindowMillis(-5);
+        assertEquals(-1, coalescer.getWindowMillis());
+        coalescer.tap("c");
+        coalescer.tap("c");
+        assertEquals(Arrays.asList("a", "c", "c"), coalescer.dispatched);
+    }
+}
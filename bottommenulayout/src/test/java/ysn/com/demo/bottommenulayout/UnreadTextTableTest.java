@@ -0,0 +1,61 @@
+package ysn.com.demo.bottommenulayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @Author yangsanning
+ * @ClassName UnreadTextTableTest
+ * @Description {@link UnreadTextTable} 边界及复用
+ * @Date 2020/6/10
+ */
+public class UnreadTextTableTest {
+
+    @Test
+    public void bounds() {
+        UnreadTextTable table = UnreadTextTable.of(99);
+        assertEquals("0", table.get(0));
+        assertEquals("0", table.get(-5));
+        assertEquals("1", table.get(1));
+        assertEquals("99", table.get(99));
+        assertEquals("99+", table.get(100));
+        assertEquals("99+", table.get(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void zeroMax() {
+        UnreadTextTable table = UnreadTextTable.of(-3);
+        assertEquals(0, table.getMaxUnreadNum());
+        assertEquals("0", table.get(0));
+        assertEquals("0+", table.get(1));
+    }
+
+    @Test
+    public void sharedAndCached() {
+        assertSame(UnreadTextTable.of(9), UnreadTextTable.of(9));
+        UnreadTextTable table = UnreadTextTable.of(9);
+        assertSame(table.get(5), table.get(5));
+        assertSame(table.get(10), table.get(11));
+    }
+
+    @Test
+    public void unlimitedMax() {
+        UnreadTextTable table = UnreadTextTable.of(Integer.MAX_VALUE);
+        assertEquals("999", table.get(999));
+        assertEquals("50000000", table.get(50000000));
+        assertEquals(String.valueOf(Integer.MAX_VALUE), table.get(Integer.MAX_VALUE));
+        assertSame(table.get(7), UnreadTextTable.of(99).get(7));
+    }
+
+    @Test
+    public void boundedTables() {
+        UnreadTextTable first = UnreadTextTable.of(1000);
+        for (int i = 0; i < UnreadTextTable.MAX_TABLES; i++) {
+            UnreadTextTable.of(2000 + i);
+        }
+        assertNotSame(first, UnreadTextTable.of(1000));
+    }
+}